@@ -0,0 +1,74 @@
+package org.hdfscache.idecider;
+
+/**
+ * This class represents one block of a file. Block is tracked like a file so
+ * LPF cache calculates popularity of each block and admits or evicts each
+ * block separately. So large file can be partially cached as per heat of its
+ * blocks. Size of block is BLOCK_SIZE except the last block of file which
+ * holds rest of the file, and block costs as much to miss as its file, so
+ * cost aware eviction and byte occupancy account each block correctly.
+ * 
+ * @author jsrudani
+ * 
+ */
+public class Block extends Inode {
+
+    /**
+     * It represents the file to which block belongs.
+     */
+    private final Inode file;
+    /**
+     * It represents position of block in file. Block starts at blockIndex *
+     * BLOCK_SIZE offset of file.
+     */
+    private final long blockIndex;
+
+    Block(Inode file, long blockIndex) {
+        super(blockPath(file, blockIndex), file.getCreationtime());
+        this.file = file;
+        this.blockIndex = blockIndex;
+        initializeSize();
+    }
+
+    /**
+     * It rebuilds the block of file from its state saved in snapshot. Block
+     * keeps inode id it had.
+     * 
+     * @param file
+     * @param blockIndex
+     * @param state
+     */
+    Block(Inode file, long blockIndex, Inode state) {
+        super(state.getInodeId(), blockPath(file, blockIndex), state.getCreationtime(), state.getAccesstime(), state.getAccesscount(), false, state.getWindowsize(), state.getPopularity(), state.getStartWindowTime(), state.getLastAccessTime());
+        this.file = file;
+        this.blockIndex = blockIndex;
+        initializeSize();
+    }
+
+    private static String blockPath(Inode file, long blockIndex) {
+        return file.getPath() + LPFConstant.BLOCK_PATH_SEPARATOR + blockIndex;
+    }
+
+    private void initializeSize() {
+        // Range read is validated against size of file, so block always
+        // starts within the file
+        setSize(Math.min(LPFConstant.BLOCK_SIZE, file.getSize() - getOffset()));
+        setMissCost(file.getMissCost());
+    }
+
+    public Inode getFile() {
+        return file;
+    }
+
+    public long getBlockIndex() {
+        return blockIndex;
+    }
+
+    /**
+     * It returns the offset of first byte of block in file.
+     */
+    public long getOffset() {
+        return blockIndex * LPFConstant.BLOCK_SIZE;
+    }
+
+}
@@ -1,5 +1,9 @@
 package org.hdfscache.idecider;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * This interface provide basic implementation contract that every type of cache has to implement.
  * @author jrrudani
@@ -14,4 +18,116 @@ public interface Cache {
      */
     public void read(Inode file);
 
+    /**
+     * It is used to check whether file is cached without counting it as
+     * access. Cache which keeps its own state of files overrides it.
+     * @param file
+     * @return true if file is cached
+     */
+    public default boolean isCached(Inode file) {
+        return file.isCached();
+    }
+
+    /**
+     * It is used to read part of the file. Cache which tracks blocks performs
+     * its actions on each block in the range. By default whole file is read.
+     * @param file
+     * @param offset Offset of first byte read
+     * @param length Number of bytes read
+     */
+    public default void readRange(Inode file, long offset, long length) {
+        read(file);
+    }
+
+    /**
+     * It is used to inform the cache that file is created. Cache which keeps
+     * its own index of files overrides it. By default nothing is done.
+     * @param file
+     */
+    public default void onCreate(Inode file) {
+    }
+
+    /**
+     * It is used to add node to the cache. Cache made of nodes overrides it.
+     * By default node operations are ignored.
+     * @param nodeName
+     */
+    public default void addNode(String nodeName) {
+    }
+
+    /**
+     * It is used to remove node from the cache. Cache made of nodes overrides
+     * it. By default node operations are ignored.
+     * @param nodeName
+     */
+    public default void removeNode(String nodeName) {
+    }
+
+    /**
+     * It is used to admit every file under the directory. Cache which is
+     * aware of namespace overrides it. By default nothing is admitted.
+     * @param directoryPath
+     * @return number of files admitted
+     */
+    public default int admitSubtree(String directoryPath) {
+        return 0;
+    }
+
+    /**
+     * It is used to remove every cached file under the directory. Cache which
+     * is aware of namespace overrides it. By default nothing is removed.
+     * @param directoryPath
+     * @return number of files removed
+     */
+    public default int evictSubtree(String directoryPath) {
+        return 0;
+    }
+
+    /**
+     * It is used to read the batch of files. It returns whether each file was
+     * cached when it was read. Cache can override it to amortize its work
+     * over the batch. By default files are read one by one.
+     * @param files
+     * @return hit/miss of each file in the order of batch
+     */
+    public default boolean[] readAll(List<Inode> files) {
+        boolean[] results = new boolean[files.size()];
+        for (int i = 0; i < results.length; i++) {
+            Inode file = files.get(i);
+            results[i] = isCached(file);
+            read(file);
+        }
+        return results;
+    }
+
+    /**
+     * It is used to read the batch of files without waiting for the cache.
+     * Future completes with hit/miss of each file in the order of batch.
+     * @param files
+     */
+    public default CompletableFuture<boolean[]> readAllAsync(final List<Inode> files) {
+        return CompletableFuture.supplyAsync(new Supplier<boolean[]>() {
+            @Override
+            public boolean[] get() {
+                return readAll(files);
+            }
+        });
+    }
+
+    /**
+     * It is used to read single file without waiting for the cache. Future
+     * completes with true if file was cached.
+     * @param file
+     */
+    public default CompletableFuture<Boolean> readAsync(final Inode file) {
+        return CompletableFuture.supplyAsync(new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+                boolean hit = isCached(file);
+                read(file);
+                return hit;
+            }
+        });
+    }
+
 }
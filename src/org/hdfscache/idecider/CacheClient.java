@@ -0,0 +1,108 @@
+package org.hdfscache.idecider;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * This class is client of cache server. Requests can be pipelined by calling
+ * send several times before receive. Responses are received in the order
+ * requests are sent. It is not thread safe, each thread should use its own
+ * client.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheClient implements Closeable {
+
+    private final SocketChannel channel;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(LPFConstant.SERVER_BUFFER_SIZE);
+    private int nextRequestId = 0;
+
+    public CacheClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        readBuffer.flip();
+    }
+
+    /**
+     * It checks whether files are cached. It does not count as access.
+     *
+     * @param paths
+     * @return result of each file
+     * @throws IOException
+     */
+    public byte[] lookup(List<String> paths) throws IOException {
+        send(CacheProtocol.OPCODE_LOOKUP, paths);
+        return receive().getResults();
+    }
+
+    /**
+     * It reads the files through cache and returns whether each file was
+     * cached.
+     *
+     * @param paths
+     * @return result of each file
+     * @throws IOException
+     */
+    public byte[] record(List<String> paths) throws IOException {
+        send(CacheProtocol.OPCODE_RECORD, paths);
+        return receive().getResults();
+    }
+
+    /**
+     * It sends the request without waiting for response.
+     *
+     * @param opcode
+     * @param paths
+     * @return request id
+     * @throws IOException
+     */
+    public int send(byte opcode, List<String> paths) throws IOException {
+        int requestId = nextRequestId++;
+        ByteBuffer request = CacheProtocol.encodeRequest(requestId, opcode, paths);
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+        return requestId;
+    }
+
+    /**
+     * It waits for response of the oldest request whose response is not yet
+     * received.
+     *
+     * @return Response
+     * @throws IOException
+     */
+    public CacheProtocol.Response receive() throws IOException {
+        int frameLength;
+        while ((frameLength = CacheProtocol.completeFrameLength(readBuffer)) < 0) {
+            try {
+                readBuffer = CacheProtocol.compactForFrame(readBuffer);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Invalid response from cache server " + ex.getMessage());
+            }
+            int read = channel.read(readBuffer);
+            readBuffer.flip();
+            if (read < 0) {
+                throw new EOFException("Cache server closed connection");
+            }
+        }
+        int frameEnd = readBuffer.position() + frameLength;
+        CacheProtocol.Response response = CacheProtocol.Response.decode(readBuffer);
+        readBuffer.position(frameEnd);
+        if (response.getStatus() != CacheProtocol.STATUS_OK) {
+            throw new IOException("Cache server rejected request " + response.getRequestId());
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,293 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class simulates cluster of cache nodes inside single process. Each node
+ * is separate LPF cache. File is placed on node by consistent hashing of its
+ * path. Every node owns several virtual nodes on hash ring so files are spread
+ * evenly. When node joins, only the files whose position on ring now falls on
+ * new node are moved and when node leaves, only its files are moved to the
+ * next node on ring. Every node keeps its own inode of each file it serves,
+ * so cached state, access count and window of a file on one node do not
+ * affect other nodes.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheCluster implements Cache, CacheStatistics {
+
+    /**
+     * This represents the hash ring. It maps position of virtual node to name
+     * of node.
+     */
+    private final TreeMap<Long, String> hashRing = new TreeMap<Long, String>();
+    /**
+     * This represents the mapping of node name -> node.
+     */
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<String, ClusterNode>();
+    /**
+     * It allows reads to route in parallel while node join/leave changes ring
+     * exclusively.
+     */
+    private final ReadWriteLock ringLock = new ReentrantReadWriteLock();
+    /**
+     * This represents number of cached files moved between nodes because of
+     * node join/leave.
+     */
+    private final AtomicLong remappedFile = new AtomicLong(0);
+
+    public CacheCluster(int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("Cluster should have at least one node " + nodeCount);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            addNode(LPFConstant.CLUSTER_NODE_PREFIX + i);
+        }
+    }
+
+    @Override
+    public void read(Inode file) {
+        ringLock.readLock().lock();
+        try {
+            ClusterNode node = lookup(file.getPath());
+            node.cache.read(node.nodeFile(file));
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void readRange(Inode file, long offset, long length) {
+        ringLock.readLock().lock();
+        try {
+            ClusterNode node = lookup(file.getPath());
+            node.cache.readRange(node.nodeFile(file), offset, length);
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isCached(Inode file) {
+        ringLock.readLock().lock();
+        try {
+            Inode nodeFile = lookup(file.getPath()).files.get(file.getPath());
+            return nodeFile != null && nodeFile.isCached();
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * It adds new node to cluster. Files which are now placed on new node are
+     * removed from their old node. Pending admissions of old nodes are
+     * finished first so that file being admitted is not left behind on old
+     * node.
+     *
+     * @param nodeName
+     */
+    @Override
+    public void addNode(String nodeName) {
+        ringLock.writeLock().lock();
+        try {
+            if (nodes.containsKey(nodeName)) {
+                throw new IllegalArgumentException("Node " + nodeName + " is already part of cluster");
+            }
+            nodes.put(nodeName, new ClusterNode(nodeName, new LPFCache()));
+            for (int i = 0; i < LPFConstant.CLUSTER_VIRTUAL_NODE_COUNT; i++) {
+                hashRing.put(FnvHash.hash(nodeName + LPFConstant.VIRTUAL_NODE_SEPARATOR + i), nodeName);
+            }
+            // Move the files which new node owns now
+            for (ClusterNode node : nodes.values()) {
+                if (node.name.equals(nodeName)) {
+                    continue;
+                }
+                awaitPendingAdmissions(node);
+                for (Inode file : node.files.values()) {
+                    if (lookup(file.getPath()).name.equals(nodeName)) {
+                        node.files.remove(file.getPath());
+                        if (node.cache.invalidate(file)) {
+                            remappedFile.incrementAndGet();
+                        }
+                    }
+                }
+            }
+            System.out.println("Node " + nodeName + " joined cluster of " + nodes.size() + " nodes");
+        } finally {
+            ringLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * It removes the node from cluster. Files cached on node are dropped and
+     * are served by next node on ring from now on.
+     *
+     * @param nodeName
+     */
+    @Override
+    public void removeNode(String nodeName) {
+        ringLock.writeLock().lock();
+        try {
+            ClusterNode node = nodes.get(nodeName);
+            if (node == null) {
+                throw new IllegalArgumentException("Node " + nodeName + " is not part of cluster");
+            }
+            if (nodes.size() == 1) {
+                throw new IllegalArgumentException("Last node " + nodeName + " can not leave cluster");
+            }
+            for (int i = 0; i < LPFConstant.CLUSTER_VIRTUAL_NODE_COUNT; i++) {
+                hashRing.remove(FnvHash.hash(nodeName + LPFConstant.VIRTUAL_NODE_SEPARATOR + i));
+            }
+            nodes.remove(nodeName);
+            awaitPendingAdmissions(node);
+            for (Inode file : node.cache.getCachedFiles()) {
+                if (node.cache.invalidate(file)) {
+                    remappedFile.incrementAndGet();
+                }
+            }
+            node.cache.shutdown();
+            System.out.println("Node " + nodeName + " left cluster of " + nodes.size() + " nodes");
+        } finally {
+            ringLock.writeLock().unlock();
+        }
+    }
+
+    private void awaitPendingAdmissions(ClusterNode node) {
+        try {
+            node.cache.awaitPendingAdmissions();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for admissions of node " + node.name);
+        }
+    }
+
+    /**
+     * It returns the node which owns the given path. It is the first virtual
+     * node clockwise from hash of path.
+     *
+     * @param path
+     * @return ClusterNode
+     */
+    private ClusterNode lookup(String path) {
+        SortedMap<Long, String> tailMap = hashRing.tailMap(FnvHash.hash(path));
+        String nodeName = tailMap.isEmpty() ? hashRing.firstEntry().getValue() : tailMap.get(tailMap.firstKey());
+        return nodes.get(nodeName);
+    }
+
+    /**
+     * It returns the statistics of each node in the form
+     * [Node,Request,Hit,HitRatio,CachedFile] followed by load imbalance (max
+     * node request / mean node request), the hot spot node with its share of
+     * requests and number of remapped files. Request and hit are both counted
+     * by cache of node, so range read counts one request per block like its
+     * hits.
+     */
+    @Override
+    public String getStatistics() {
+        ringLock.readLock().lock();
+        try {
+            StringBuilder statistics = new StringBuilder();
+            long totalRequest = 0L;
+            long maxRequest = 0L;
+            String hotSpot = null;
+            for (ClusterNode node : nodes.values()) {
+                long request = node.cache.getLPF_CACHE_TOTAL_REQUEST().get();
+                long hit = node.cache.getLPF_CACHE_HIT().get();
+                totalRequest += request;
+                if (hotSpot == null || request > maxRequest) {
+                    maxRequest = request;
+                    hotSpot = node.name;
+                }
+                statistics.append("[" + node.name + "," + request + "," + hit + "," + (((float) hit) / Math.max(1L, request)) + "," + node.cache.getCachedFiles().size() + "]\n");
+            }
+            float meanRequest = ((float) totalRequest) / Math.max(1, nodes.size());
+            statistics.append("LoadImbalance " + ((meanRequest == 0) ? 0 : (maxRequest / meanRequest)) + "\n");
+            statistics.append("HotSpot " + hotSpot + " " + (((float) maxRequest) / Math.max(1L, totalRequest)) + "\n");
+            statistics.append("RemappedFile " + remappedFile.get());
+            return statistics.toString();
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    public List<String> getNodeNames() {
+        ringLock.readLock().lock();
+        try {
+            return new ArrayList<String>(nodes.keySet());
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * It returns the cache of given node or null if node is not part of
+     * cluster.
+     *
+     * @param nodeName
+     * @return LPFCache
+     */
+    public LPFCache getNodeCache(String nodeName) {
+        ringLock.readLock().lock();
+        try {
+            ClusterNode node = nodes.get(nodeName);
+            return (node == null) ? null : node.cache;
+        } finally {
+            ringLock.readLock().unlock();
+        }
+    }
+
+    public AtomicLong getRemappedFile() {
+        return remappedFile;
+    }
+
+    /**
+     * This class represents one node of cluster.
+     *
+     * @author jsrudani
+     *
+     */
+    static class ClusterNode {
+        private final String name;
+        private final LPFCache cache;
+        /**
+         * This represents the mapping of path -> inode of file on this node.
+         */
+        private final Map<String, Inode> files = new ConcurrentHashMap<String, Inode>();
+
+        ClusterNode(String name, LPFCache cache) {
+            this.name = name;
+            this.cache = cache;
+        }
+
+        /**
+         * It returns inode of file on this node. Inode is created with
+         * default access state when file is read on this node first time.
+         *
+         * @param file
+         * @return Inode of file on this node
+         */
+        Inode nodeFile(Inode file) {
+            Inode nodeFile = files.get(file.getPath());
+            if (nodeFile == null) {
+                Inode created = new Inode(file.getInodeId(), file.getPath(), file.getCreationtime(), LPFConstant.DEFAULT_ACCESS_TIME, LPFConstant.DEFAULT_ACCESS_COUNT, false, cache.getParameters().getDefaultWindowSize(), LPFConstant.DEFAULT_POPULARITY_VALUE, LPFConstant.DEFAULT_START_WINDOW_TIME, LPFConstant.DEFAULT_LAST_ACCESS_TIME);
+                created.setSize(file.getSize());
+                created.setMissCost(file.getMissCost());
+                nodeFile = files.putIfAbsent(file.getPath(), created);
+                if (nodeFile == null) {
+                    nodeFile = created;
+                }
+            }
+            return nodeFile;
+        }
+    }
+}
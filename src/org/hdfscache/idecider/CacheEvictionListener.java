@@ -0,0 +1,23 @@
+package org.hdfscache.idecider;
+
+/**
+ * This interface is used to get notified when file is removed from cache.
+ * Listener is called from the thread which removes the file, after file is
+ * marked as not cached and while lock of file is held, so file can not be
+ * cached again before listener returns. Listener should not take lock of any
+ * other file.
+ * 
+ * @author jsrudani
+ * 
+ */
+public interface CacheEvictionListener {
+
+    /**
+     * It is called whenever file is removed from cache either to make room for
+     * new file or because file is not popular at window expiration.
+     * 
+     * @param file
+     */
+    public void onEviction(Inode file);
+
+}
@@ -0,0 +1,240 @@
+package org.hdfscache.idecider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates load on cache server. It opens many connections from
+ * single selector thread and keeps fixed number of batched requests in flight
+ * on every connection. At the end it reports throughput and latency
+ * percentiles of requests.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheLoadGenerator {
+
+    private final String host;
+    private final int port;
+    private final int connectionCount;
+    private final int requestPerConnection;
+    private final int batchSize;
+    private final int pipelineDepth;
+    private final int fileCount;
+    /**
+     * This represents latency (in nanoseconds) of every completed request.
+     */
+    private final long[] latencies;
+    private int completedRequest;
+    /**
+     * This represents number of responses which are not OK or do not match
+     * the request they answer. They are not counted as completed requests.
+     */
+    private int failedRequest;
+    private final Random random = new Random();
+
+    public CacheLoadGenerator(String host, int port, int connectionCount, int requestPerConnection, int batchSize, int pipelineDepth, int fileCount) {
+        this.host = host;
+        this.port = port;
+        this.connectionCount = connectionCount;
+        this.requestPerConnection = requestPerConnection;
+        this.batchSize = batchSize;
+        this.pipelineDepth = pipelineDepth;
+        this.fileCount = fileCount;
+        this.latencies = new long[connectionCount * requestPerConnection];
+    }
+
+    /**
+     * It runs the load till every connection completes its requests and
+     * prints the report.
+     *
+     * @throws IOException
+     */
+    public void run() throws IOException {
+        long startTime = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connectionCount; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(new InetSocketAddress(host, port));
+                channel.register(selector, SelectionKey.OP_CONNECT, new LoadConnection());
+            }
+            int finishedConnection = 0;
+            while (finishedConnection < connectionCount) {
+                selector.select();
+                Iterator<SelectionKey> keyItr = selector.selectedKeys().iterator();
+                while (keyItr.hasNext()) {
+                    SelectionKey key = keyItr.next();
+                    keyItr.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    LoadConnection connection = (LoadConnection) key.attachment();
+                    if (key.isConnectable()) {
+                        channel.finishConnect();
+                        channel.socket().setTcpNoDelay(true);
+                        while (connection.sent < requestPerConnection && (connection.sent - connection.received) < pipelineDepth) {
+                            connection.queueRequest();
+                        }
+                    }
+                    if (key.isReadable() && connection.readResponses(channel)) {
+                        finishedConnection++;
+                        key.cancel();
+                        channel.close();
+                        continue;
+                    }
+                    connection.flush(channel);
+                    key.interestOps(connection.writeBuffer.position() > 0 ? (SelectionKey.OP_READ | SelectionKey.OP_WRITE) : SelectionKey.OP_READ);
+                }
+            }
+        }
+        report(System.nanoTime() - startTime);
+    }
+
+    private void report(long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(latencies, completedRequest);
+        Arrays.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("Connections " + connectionCount + ", requests " + completedRequest + ", failed requests " + failedRequest + ", files per request " + batchSize + ", pipeline depth " + pipelineDepth);
+        System.out.println("Elapsed " + seconds + " s");
+        System.out.println("Throughput " + (completedRequest / seconds) + " requests/s, " + ((((double) completedRequest) * batchSize) / seconds) + " files/s");
+        System.out.println("Latency p50 " + percentile(sorted, 0.50) + " us, p99 " + percentile(sorted, 0.99) + " us, max " + percentile(sorted, 1.0) + " us");
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+
+    /**
+     * This class holds the state of one connection of load generator.
+     *
+     * @author jsrudani
+     *
+     */
+    class LoadConnection {
+        private int sent;
+        private int received;
+        /**
+         * This represents number of queued requests which are completely
+         * written to socket.
+         */
+        private int written;
+        /**
+         * This represents number of bytes queued and written on connection.
+         */
+        private long queuedBytes;
+        private long writtenBytes;
+        /**
+         * This represents send time of requests in flight. Since responses
+         * come in request order, it is used as ring of pipeline depth.
+         */
+        private final long[] sendTime = new long[pipelineDepth];
+        /**
+         * This represents end of each request in flight as number of bytes
+         * queued on connection. It is used to find when request is
+         * completely written.
+         */
+        private final long[] requestEnd = new long[pipelineDepth];
+        private ByteBuffer writeBuffer = ByteBuffer.allocate(LPFConstant.SERVER_BUFFER_SIZE);
+        private ByteBuffer readBuffer = ByteBuffer.allocate(LPFConstant.SERVER_BUFFER_SIZE);
+
+        void queueRequest() {
+            List<String> paths = new ArrayList<String>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                paths.add(String.valueOf(random.nextInt(fileCount)));
+            }
+            ByteBuffer request = CacheProtocol.encodeRequest(sent, CacheProtocol.OPCODE_RECORD, paths);
+            if (writeBuffer.remaining() < request.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(writeBuffer.position() + request.remaining());
+                writeBuffer.flip();
+                grown.put(writeBuffer);
+                writeBuffer = grown;
+            }
+            queuedBytes += request.remaining();
+            writeBuffer.put(request);
+            requestEnd[sent % pipelineDepth] = queuedBytes;
+            sent++;
+        }
+
+        /**
+         * It writes queued requests. Send time of request is taken when its
+         * last byte is written so time spent waiting in write buffer is not
+         * counted as latency.
+         *
+         * @param channel
+         * @throws IOException
+         */
+        void flush(SocketChannel channel) throws IOException {
+            writeBuffer.flip();
+            writtenBytes += channel.write(writeBuffer);
+            writeBuffer.compact();
+            long now = System.nanoTime();
+            while (written < sent && requestEnd[written % pipelineDepth] <= writtenBytes) {
+                sendTime[written % pipelineDepth] = now;
+                written++;
+            }
+        }
+
+        /**
+         * It reads the responses, records their latency and queues next
+         * requests.
+         *
+         * @param channel
+         * @return true if connection has received all responses
+         * @throws IOException
+         */
+        boolean readResponses(SocketChannel channel) throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new IOException("Cache server closed connection");
+            }
+            readBuffer.flip();
+            int frameLength;
+            while ((frameLength = CacheProtocol.completeFrameLength(readBuffer)) > 0) {
+                int frameEnd = readBuffer.position() + frameLength;
+                CacheProtocol.Response response = CacheProtocol.Response.decode(readBuffer);
+                readBuffer.position(frameEnd);
+                if (response.getStatus() == CacheProtocol.STATUS_OK && response.getRequestId() == received && response.getResults().length == batchSize) {
+                    latencies[completedRequest++] = System.nanoTime() - sendTime[received % pipelineDepth];
+                } else {
+                    failedRequest++;
+                }
+                received++;
+                if (sent < requestPerConnection) {
+                    queueRequest();
+                }
+            }
+            // Response larger than buffer grows it
+            readBuffer = CacheProtocol.compactForFrame(readBuffer);
+            return received == requestPerConnection;
+        }
+    }
+
+    /**
+     * It runs the load generator.
+     *
+     * @param args
+     *            [Host Port Connections RequestPerConnection BatchSize
+     *            PipelineDepth FileCount]
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length != 7) {
+                throw new IllegalArgumentException("Usage: CacheLoadGenerator <host> <port> <connections> <requestPerConnection> <batchSize> <pipelineDepth> <fileCount>");
+            }
+            new CacheLoadGenerator(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6])).run();
+        } catch (Throwable t) {
+            System.out.println(t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package org.hdfscache.idecider;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class defines the binary protocol used between cache server and its
+ * clients. Every message is a frame prefixed by its length so client can send
+ * several requests without waiting for response (pipelining) and each request
+ * can carry several files (batching). Server sends responses in the order
+ * requests are received.
+ *
+ * Request frame is [FrameLength RequestId Opcode FileCount (PathLength Path)*]
+ * and response frame is [FrameLength RequestId Status FileCount Result*].
+ * FrameLength is number of bytes after the length field. All numbers are big
+ * endian, PathLength is 2 bytes and Path is UTF-8.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheProtocol {
+
+    /**
+     * It checks whether files are cached without counting it as access.
+     */
+    public static final byte OPCODE_LOOKUP = 1;
+    /**
+     * It reads the files through cache. Result tells whether file was cached
+     * before the read.
+     */
+    public static final byte OPCODE_RECORD = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_BAD_REQUEST = 1;
+
+    public static final byte RESULT_MISS = 0;
+    public static final byte RESULT_HIT = 1;
+    /**
+     * It represents file which is not created.
+     */
+    public static final byte RESULT_UNKNOWN_FILE = 2;
+
+    /**
+     * It represents size of length prefix of frame.
+     */
+    public static final int LENGTH_SIZE = 4;
+    /**
+     * It represents size of request and response header after length prefix.
+     * [RequestId Opcode/Status FileCount]
+     */
+    public static final int HEADER_SIZE = 4 + 1 + 4;
+    /**
+     * It represents the maximum size of frame accepted by server and client.
+     */
+    public static final int MAX_FRAME_SIZE = 1024 * 1024;
+
+    private CacheProtocol() {
+    }
+
+    /**
+     * It encodes request for given files. Returned buffer is ready to be
+     * written.
+     *
+     * @param requestId
+     * @param opcode
+     * @param paths
+     * @return ByteBuffer
+     */
+    public static ByteBuffer encodeRequest(int requestId, byte opcode, List<String> paths) {
+        byte[][] encodedPaths = new byte[paths.size()][];
+        int frameLength = HEADER_SIZE;
+        for (int i = 0; i < encodedPaths.length; i++) {
+            encodedPaths[i] = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            if (encodedPaths[i].length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Path is too long " + paths.get(i));
+            }
+            frameLength += 2 + encodedPaths[i].length;
+        }
+        if (frameLength > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Request is larger than " + MAX_FRAME_SIZE + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_SIZE + frameLength);
+        buffer.putInt(frameLength);
+        buffer.putInt(requestId);
+        buffer.put(opcode);
+        buffer.putInt(encodedPaths.length);
+        for (byte[] path : encodedPaths) {
+            buffer.putShort((short) path.length);
+            buffer.put(path);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * It decodes request from complete frame at current position of buffer.
+     * Every field is checked against the frame length before it is read, so
+     * malformed frame never reads bytes of next frame. Position of buffer is
+     * not changed.
+     *
+     * @param buffer
+     *            Buffer in read mode holding complete frame
+     * @return Request
+     * @throws IllegalArgumentException
+     *             If frame is malformed
+     */
+    public static Request decodeRequest(ByteBuffer buffer)
+            throws IllegalArgumentException {
+        int frameLength = completeFrameLength(buffer);
+        if (frameLength < 0) {
+            throw new IllegalArgumentException("Incomplete frame");
+        }
+        ByteBuffer frame = buffer.duplicate();
+        frame.limit(frame.position() + frameLength);
+        frame.position(frame.position() + LENGTH_SIZE);
+        int requestId = frame.getInt();
+        byte opcode = frame.get();
+        int count = frame.getInt();
+        if (opcode != OPCODE_LOOKUP && opcode != OPCODE_RECORD) {
+            throw new IllegalArgumentException("Invalid opcode " + opcode);
+        }
+        // Each path takes at least 2 bytes in frame
+        if (count < 0 || count > frame.remaining() / 2) {
+            throw new IllegalArgumentException("Invalid file count " + count);
+        }
+        List<String> paths = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            if (frame.remaining() < 2) {
+                throw new IllegalArgumentException("Frame ends before path " + i);
+            }
+            int pathLength = frame.getShort();
+            if (pathLength < 0 || pathLength > frame.remaining()) {
+                throw new IllegalArgumentException("Invalid length " + pathLength + " of path " + i);
+            }
+            byte[] path = new byte[pathLength];
+            frame.get(path);
+            paths.add(new String(path, StandardCharsets.UTF_8));
+        }
+        if (frame.hasRemaining()) {
+            throw new IllegalArgumentException(frame.remaining() + " trailing bytes in frame");
+        }
+        return new Request(requestId, opcode, paths);
+    }
+
+    /**
+     * It encodes response with given results. Returned buffer is ready to be
+     * written.
+     *
+     * @param requestId
+     * @param status
+     * @param results
+     * @return ByteBuffer
+     */
+    public static ByteBuffer encodeResponse(int requestId, byte status, byte[] results) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_SIZE + HEADER_SIZE + results.length);
+        buffer.putInt(HEADER_SIZE + results.length);
+        buffer.putInt(requestId);
+        buffer.put(status);
+        buffer.putInt(results.length);
+        buffer.put(results);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * It returns the request id of complete frame at current position of
+     * buffer. It is used to answer the frame which can not be decoded.
+     *
+     * @param buffer
+     * @return request id
+     */
+    public static int requestId(ByteBuffer buffer) {
+        return buffer.getInt(buffer.position() + LENGTH_SIZE);
+    }
+
+    /**
+     * It returns the length of complete frame at current position of buffer
+     * including length prefix. If buffer does not hold complete frame then -1
+     * is returned.
+     *
+     * @param buffer
+     *            Buffer in read mode
+     * @return frame length or -1
+     */
+    public static int completeFrameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_SIZE) {
+            return -1;
+        }
+        int frameLength = buffer.getInt(buffer.position());
+        if (frameLength < HEADER_SIZE || frameLength > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Invalid frame length " + frameLength);
+        }
+        return (buffer.remaining() >= LENGTH_SIZE + frameLength) ? LENGTH_SIZE + frameLength : -1;
+    }
+
+    /**
+     * It keeps the partially received frame at current position of buffer and
+     * makes room for rest of it. Length of frame is validated before buffer
+     * is grown so peer can not make it allocate more than MAX_FRAME_SIZE.
+     *
+     * @param buffer
+     *            Buffer in read mode
+     * @return Buffer in write mode holding the partial frame. It is new buffer
+     *         if given buffer is too small for the frame.
+     * @throws IllegalArgumentException
+     *             If length of frame is invalid
+     */
+    public static ByteBuffer compactForFrame(ByteBuffer buffer)
+            throws IllegalArgumentException {
+        completeFrameLength(buffer);
+        int required = (buffer.remaining() >= LENGTH_SIZE) ? LENGTH_SIZE + buffer.getInt(buffer.position()) : 0;
+        if (required > buffer.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(required);
+            grown.put(buffer);
+            return grown;
+        }
+        buffer.compact();
+        return buffer;
+    }
+
+    /**
+     * This class represents the request decoded by server.
+     *
+     * @author jsrudani
+     *
+     */
+    public static class Request {
+        private final int requestId;
+        private final byte opcode;
+        private final List<String> paths;
+
+        Request(int requestId, byte opcode, List<String> paths) {
+            this.requestId = requestId;
+            this.opcode = opcode;
+            this.paths = paths;
+        }
+
+        public int getRequestId() {
+            return requestId;
+        }
+
+        public byte getOpcode() {
+            return opcode;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+    }
+
+    /**
+     * This class represents the response of one request.
+     *
+     * @author jsrudani
+     *
+     */
+    public static class Response {
+        private final int requestId;
+        private final byte status;
+        private final byte[] results;
+
+        Response(int requestId, byte status, byte[] results) {
+            this.requestId = requestId;
+            this.status = status;
+            this.results = results;
+        }
+
+        /**
+         * It decodes the response from complete frame at current position of
+         * buffer and moves the position to the end of frame.
+         *
+         * @param buffer
+         * @return Response
+         * @throws IllegalArgumentException
+         *             If frame is malformed
+         */
+        static Response decode(ByteBuffer buffer)
+                throws IllegalArgumentException {
+            int frameLength = buffer.getInt();
+            int requestId = buffer.getInt();
+            byte status = buffer.get();
+            int count = buffer.getInt();
+            if (count != frameLength - HEADER_SIZE) {
+                throw new IllegalArgumentException("Invalid result count " + count + " for frame of " + frameLength + " bytes");
+            }
+            byte[] results = new byte[count];
+            buffer.get(results);
+            return new Response(requestId, status, results);
+        }
+
+        public int getRequestId() {
+            return requestId;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        /**
+         * It returns result of each file in the order of request.
+         */
+        public byte[] getResults() {
+            return results;
+        }
+    }
+}
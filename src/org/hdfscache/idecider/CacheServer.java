@@ -0,0 +1,411 @@
+package org.hdfscache.idecider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class exposes the cache to remote clients. It is non-blocking server
+ * where single selector thread does the network I/O of all the connections
+ * and worker threads run the requests against cache, so slow cache operation
+ * does not hold other connections. Requests follow CacheProtocol. Each
+ * connection can pipeline requests and each request can batch several files.
+ * Responses of a connection are sent in request order.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheServer implements Runnable {
+
+    private final Cache cache;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private volatile boolean running = true;
+    private final AtomicLong requestCount = new AtomicLong(0);
+    private final AtomicLong fileCount = new AtomicLong(0);
+    private final AtomicLong connectionCount = new AtomicLong(0);
+    /**
+     * Executor which runs the requests against cache.
+     */
+    private final ExecutorService workers = Executors.newFixedThreadPool(LPFConstant.SERVER_WORKER_COUNT, new ThreadFactory() {
+        private final AtomicInteger workerCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "lpf-cache-server-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    /**
+     * This represents connections whose response is finished by worker and
+     * is yet to be sent by selector thread.
+     */
+    private final Queue<SelectionKey> completedKeys = new ConcurrentLinkedQueue<SelectionKey>();
+
+    public CacheServer(Cache cache, int port) throws IOException {
+        this.cache = cache;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), LPFConstant.SERVER_BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * It starts the server on new thread.
+     *
+     * @return Thread serving the requests
+     */
+    public Thread start() {
+        Thread serverThread = new Thread(this, "lpf-cache-server");
+        serverThread.start();
+        return serverThread;
+    }
+
+    /**
+     * It stops the server and closes all the connections.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        System.out.println("Cache server listening on " + getPort());
+        try {
+            while (running) {
+                selector.select();
+                SelectionKey completedKey;
+                while ((completedKey = completedKeys.poll()) != null) {
+                    try {
+                        if (completedKey.isValid()) {
+                            serve(completedKey);
+                        }
+                    } catch (Exception ex) {
+                        close(completedKey);
+                    }
+                }
+                Iterator<SelectionKey> keyItr = selector.selectedKeys().iterator();
+                while (keyItr.hasNext()) {
+                    SelectionKey key = keyItr.next();
+                    keyItr.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                serve(key);
+                            }
+                        }
+                    } catch (Exception ex) {
+                        // Problem in one connection should not stop server
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println("Cache server stopped " + ex.getMessage());
+        } finally {
+            workers.shutdownNow();
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                System.out.println("Problem in closing selector " + ex.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+            connectionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * It reads whatever is available and serves the connection.
+     *
+     * @param key
+     * @throws IOException
+     */
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (channel.read(connection.readBuffer) < 0) {
+            close(key);
+            return;
+        }
+        serve(key);
+    }
+
+    /**
+     * It hands over complete frames to workers, moves finished responses to
+     * write buffer in request order and writes them. If connection has too
+     * many responses pending, server stops reading it till they are sent so
+     * memory held by slow client is bounded.
+     *
+     * @param key
+     * @throws IOException
+     */
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        processFrames(key, connection);
+        connection.drainResponses();
+        if (connection.writeBuffer.position() > 0) {
+            connection.writeBuffer.flip();
+            channel.write(connection.writeBuffer);
+            connection.writeBuffer.compact();
+        }
+        int interestOps = connection.isBackedUp() ? 0 : SelectionKey.OP_READ;
+        if (connection.writeBuffer.position() > 0) {
+            interestOps |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(interestOps);
+    }
+
+    /**
+     * It submits all complete frames of read buffer unless connection is
+     * backed up. Frames which are not submitted stay in read buffer.
+     *
+     * @param key
+     * @param connection
+     */
+    private void processFrames(SelectionKey key, Connection connection) {
+        connection.readBuffer.flip();
+        int frameLength;
+        while (!connection.isBackedUp() && (frameLength = CacheProtocol.completeFrameLength(connection.readBuffer)) > 0) {
+            int frameEnd = connection.readBuffer.position() + frameLength;
+            submitRequest(key, connection);
+            connection.readBuffer.position(frameEnd);
+        }
+        // Keep partially received frame and make room for rest of it. Invalid
+        // frame length closes the connection
+        connection.readBuffer = CacheProtocol.compactForFrame(connection.readBuffer);
+    }
+
+    /**
+     * It decodes single request frame and submits it to workers. Slot of its
+     * response is reserved right away so responses are sent in request
+     * order. Malformed frame is answered with bad request.
+     *
+     * @param key
+     * @param connection
+     */
+    private void submitRequest(SelectionKey key, Connection connection) {
+        requestCount.incrementAndGet();
+        PendingResponse pending = new PendingResponse();
+        connection.pendingResponses.add(pending);
+        try {
+            workers.execute(new RequestTask(key, CacheProtocol.decodeRequest(connection.readBuffer), pending));
+        } catch (IllegalArgumentException ex) {
+            pending.response = CacheProtocol.encodeResponse(CacheProtocol.requestId(connection.readBuffer), CacheProtocol.STATUS_BAD_REQUEST, new byte[0]);
+        }
+    }
+
+    /**
+     * It runs single request against cache and returns encoded response.
+     * Recorded files are read as one batch.
+     *
+     * @param request
+     * @return ByteBuffer
+     */
+    private ByteBuffer processRequest(CacheProtocol.Request request) {
+        List<String> paths = request.getPaths();
+        byte[] results = new byte[paths.size()];
+        List<Inode> batch = new ArrayList<Inode>(paths.size());
+        int[] batchPosition = new int[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            Inode file = FileOperation.getFileToInodeMap().get(paths.get(i));
+            if (file == null) {
+                results[i] = CacheProtocol.RESULT_UNKNOWN_FILE;
+            } else if (request.getOpcode() == CacheProtocol.OPCODE_LOOKUP) {
+                results[i] = cache.isCached(file) ? CacheProtocol.RESULT_HIT : CacheProtocol.RESULT_MISS;
+            } else {
+                batchPosition[batch.size()] = i;
+                batch.add(file);
+            }
+        }
+        if (!batch.isEmpty()) {
+            boolean[] hits = cache.readAll(batch);
+            for (int i = 0; i < hits.length; i++) {
+                results[batchPosition[i]] = hits[i] ? CacheProtocol.RESULT_HIT : CacheProtocol.RESULT_MISS;
+            }
+        }
+        fileCount.addAndGet(paths.size());
+        return CacheProtocol.encodeResponse(request.getRequestId(), CacheProtocol.STATUS_OK, results);
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ex) {
+            System.out.println("Problem in closing connection " + ex.getMessage());
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public AtomicLong getRequestCount() {
+        return requestCount;
+    }
+
+    public AtomicLong getFileCount() {
+        return fileCount;
+    }
+
+    public AtomicLong getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * This class runs single request on worker thread and hands its response
+     * back to selector thread.
+     *
+     * @author jsrudani
+     *
+     */
+    class RequestTask implements Runnable {
+        private final SelectionKey key;
+        private final CacheProtocol.Request request;
+        private final PendingResponse pending;
+
+        RequestTask(SelectionKey key, CacheProtocol.Request request, PendingResponse pending) {
+            this.key = key;
+            this.request = request;
+            this.pending = pending;
+        }
+
+        @Override
+        public void run() {
+            try {
+                pending.response = processRequest(request);
+            } catch (RuntimeException ex) {
+                System.out.println("Problem in serving request " + request.getRequestId() + " " + ex.getMessage());
+                pending.response = CacheProtocol.encodeResponse(request.getRequestId(), CacheProtocol.STATUS_BAD_REQUEST, new byte[0]);
+            }
+            completedKeys.add(key);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * This class is the slot of response of one request. It is filled by
+     * worker and read by selector thread.
+     *
+     * @author jsrudani
+     *
+     */
+    static class PendingResponse {
+        private volatile ByteBuffer response;
+    }
+
+    /**
+     * This class holds the buffers of one connection. It is accessed only by
+     * selector thread.
+     *
+     * @author jsrudani
+     *
+     */
+    static class Connection {
+        private ByteBuffer readBuffer = ByteBuffer.allocate(LPFConstant.SERVER_BUFFER_SIZE);
+        private ByteBuffer writeBuffer = ByteBuffer.allocate(LPFConstant.SERVER_BUFFER_SIZE);
+        /**
+         * This represents response slot of submitted requests in request
+         * order.
+         */
+        private final Queue<PendingResponse> pendingResponses = new ArrayDeque<PendingResponse>();
+
+        /**
+         * It moves finished responses at head of queue to write buffer.
+         * Response which is finished out of order waits for responses before
+         * it.
+         */
+        void drainResponses() {
+            PendingResponse pending;
+            while ((pending = pendingResponses.peek()) != null && pending.response != null) {
+                reserve(pending.response.remaining());
+                writeBuffer.put(pending.response);
+                pendingResponses.poll();
+            }
+        }
+
+        /**
+         * It returns true if connection has too many requests in progress or
+         * too many bytes waiting to be sent.
+         */
+        boolean isBackedUp() {
+            return pendingResponses.size() >= LPFConstant.SERVER_MAX_PENDING_REQUEST || writeBuffer.position() >= LPFConstant.SERVER_WRITE_HIGH_WATER_MARK;
+        }
+
+        /**
+         * It makes sure write buffer has room for given number of bytes.
+         *
+         * @param bytes
+         */
+        void reserve(int bytes) {
+            if (writeBuffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(writeBuffer.position() + bytes, writeBuffer.capacity() * 2));
+                writeBuffer.flip();
+                grown.put(writeBuffer);
+                writeBuffer = grown;
+            }
+        }
+    }
+
+    /**
+     * It starts standalone cache server on given port with LPF cache. Files
+     * [0, FileCount) are created so clients can read them.
+     *
+     * @param args
+     *            [Port FileCount]
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length != 2) {
+                throw new IllegalArgumentException("Usage: CacheServer <port> <fileCount>");
+            }
+            int port = Integer.parseInt(args[0]);
+            int files = Integer.parseInt(args[1]);
+            for (int i = 0; i < files; i++) {
+                FileOperation.create(String.valueOf(i));
+            }
+            new CacheServer(new LPFCache(), port).start();
+        } catch (Throwable t) {
+            System.out.println(t.getMessage());
+        }
+    }
+}
@@ -1,33 +1,75 @@
 package org.hdfscache.idecider;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * This class is main application class. It is used to read/process/replay
- * traces.
- * 
+ * traces. Apart from trace file and cache type, optional parameters can be
+ * passed as key=value. For e.g. snapshot=/tmp/lpf.snapshot or
+ * replay=primitive
+ *
  * @author jsrudani
- * 
+ *
  */
 public class CacheSimulator {
 
     public static void main(String[] args) {
         try {
             System.out.println("Starting cache simulator");
-            if (args.length != 2) {
+            if (args.length < 2) {
                 throw new IllegalArgumentException("Wrong number of Parameters !!!");
             }
             // Need to add check for file existent
             String filename = args[0];
             String cacheType = args[1];
+            Map<String, String> options = parseOptions(args);
             // Check which type of cache is requested and delegate the request
             // to that cache implementation
-            Cache cache = checkAndReturnCacheReference(cacheType);
+            Cache cache = checkAndReturnCacheReference(cacheType, options);
+            if (options.containsKey(LPFConstant.SNAPSHOT_OPTION) && options.containsKey(LPFConstant.CHECKPOINT_OPTION)) {
+                throw new IllegalArgumentException("Checkpoint already holds the snapshot of cache. Use either snapshot or checkpoint");
+            }
+            // Restore the cache from snapshot and keep snapshot up to date
+            if (options.containsKey(LPFConstant.SNAPSHOT_OPTION)) {
+                enableSnapshot(cache, options.get(LPFConstant.SNAPSHOT_OPTION));
+            }
+            // Warm up the cache with files expected to be popular
+            if (options.containsKey(LPFConstant.PRELOAD_OPTION)) {
+                if (!(cache instanceof LPFCache)) {
+                    throw new IllegalArgumentException("Preload is supported only for LPF cache");
+                }
+                PreloadList.load(options.get(LPFConstant.PRELOAD_OPTION)).apply((LPFCache) cache);
+            }
+            // Expose the cache to remote clients
+            if (options.containsKey(LPFConstant.SERVER_PORT_OPTION)) {
+                new CacheServer(cache, Integer.parseInt(options.get(LPFConstant.SERVER_PORT_OPTION))).start();
+            }
+            // Replay the trace from primitive event log
+            if (LPFConstant.PRIMITIVE_REPLAY.equals(options.get(LPFConstant.REPLAY_OPTION))) {
+                if (options.containsKey(LPFConstant.CHECKPOINT_OPTION)) {
+                    throw new IllegalArgumentException("Checkpoint is not supported by primitive replay");
+                }
+                new PrimitiveReplay(EventLog.read(filename), cache).start();
+                return;
+            }
             // Reading and Pre-processing steps
             Preprocessing preprocess = new Preprocessing(filename, cache);
             preprocess.readAndProcessTrace();
             System.out.println(preprocess.getTaskPerTimestampList());
             // Replay traces prepared after pre-processing
-            ReplayTraces replayTrace = new ReplayTraces(preprocess.getTaskPerTimestampList());
+            ReplayTraces replayTrace = null;
+            if (options.containsKey(LPFConstant.CHECKPOINT_OPTION)) {
+                replayTrace = resumeFromCheckpoint(cache, preprocess, options.get(LPFConstant.CHECKPOINT_OPTION));
+            } else {
+                replayTrace = new ReplayTraces(preprocess.getTaskPerTimestampList());
+            }
             replayTrace.runTransactionAsPerArrivalTime();
         } catch (Throwable t) {
             System.out.println(t.getMessage());
@@ -35,15 +77,209 @@ public class CacheSimulator {
     }
 
     private static Cache checkAndReturnCacheReference(
-            String cacheType) {
+            String cacheType, Map<String, String> options) {
         Cache delegate = null;
         switch (cacheType) {
             case LPFConstant.LPF_CACHE_TYPE:
-                delegate = new LPFCache();
+                LPFCache plainCache = new LPFCache();
+                reportStatisticsOnExit(plainCache);
+                delegate = plainCache;
+                break;
+            case LPFConstant.LPF_COST_CACHE_TYPE:
+                LPFCache costCache = new LPFCache(true);
+                reportStatisticsOnExit(costCache);
+                delegate = costCache;
+                break;
+            case LPFConstant.LPF_TUNED_CACHE_TYPE:
+                LPFCache tunedCache = new LPFCache();
+                LPFTuner tuner = new LPFTuner(tunedCache);
+                tuner.start();
+                reportStatisticsOnExit(tunedCache);
+                reportTuningOnExit(tuner);
+                delegate = tunedCache;
+                break;
+            case LPFConstant.LPF_RECLAIM_CACHE_TYPE:
+                LPFCache reclaimCache = new LPFCache();
+                reclaimCache.startReclaimer();
+                reportStatisticsOnExit(reclaimCache);
+                delegate = reclaimCache;
+                break;
+            case LPFConstant.LPF_NAMESPACE_CACHE_TYPE:
+                NamespaceLPFCache namespaceCache = new NamespaceLPFCache(new LPFCache());
+                reportStatisticsOnExit("Namespace LPF statistics [Request,Hit,Miss,PriorAdmission,SubtreeAdmission,SubtreeEviction] ", namespaceCache);
+                delegate = namespaceCache;
+                break;
+            case LPFConstant.LPF_TIERED_CACHE_TYPE:
+                TieredLPFCache tieredCache = new TieredLPFCache(new LPFCache());
+                reportStatisticsOnExit("Tiered LPF statistics [Request,MemoryHit,DiskHit,Miss,MemoryHitRatio,DiskHitRatio,Promotion,Demotion,DiskEviction] ", tieredCache);
+                delegate = tieredCache;
+                break;
+            case LPFConstant.LPF_DATA_CACHE_TYPE:
+                String dataDirectory = options.containsKey(LPFConstant.DATA_DIRECTORY_OPTION) ? options.get(LPFConstant.DATA_DIRECTORY_OPTION) : LPFConstant.DEFAULT_DATA_DIRECTORY;
+                LPFCache dataCache = new LPFCache();
+                dataCache.setContentStore(new SlabContentStore(new LocalDirectoryContentSource(dataDirectory), new SlabAllocator(LPFConstant.SLAB_SIZE, LPFConstant.SLAB_COUNT)));
+                delegate = dataCache;
+                break;
+            case LPFConstant.LPF_CLUSTER_CACHE_TYPE:
+                int nodeCount = options.containsKey(LPFConstant.CLUSTER_NODE_OPTION) ? Integer.parseInt(options.get(LPFConstant.CLUSTER_NODE_OPTION)) : LPFConstant.CLUSTER_NODE_COUNT;
+                if (nodeCount < 1) {
+                    throw new IllegalArgumentException("Option " + LPFConstant.CLUSTER_NODE_OPTION + " should be at least 1 but is " + nodeCount);
+                }
+                CacheCluster cluster = new CacheCluster(nodeCount);
+                reportStatisticsOnExit("Cluster statistics [Node,Request,Hit,HitRatio,CachedFile]\n", cluster);
+                delegate = cluster;
+                break;
+            case LPFConstant.LPF_DECAY_CACHE_TYPE:
+                DecayLPFCache decayCache = new DecayLPFCache();
+                reportStatisticsOnExit("Decay LPF statistics [Request,Hit,Miss,HitRatio,Rebase] ", decayCache);
+                delegate = decayCache;
+                break;
+            case LPFConstant.LPF_PREFETCH_CACHE_TYPE:
+                PrefetchingCache prefetchingCache = new PrefetchingCache(new LPFCache());
+                reportStatisticsOnExit("Prefetch statistics [Request,Hit,Miss,PrefetchIssued,PrefetchUseful,PrefetchWasted,PrefetchDropped,Accuracy,Coverage] ", prefetchingCache);
+                delegate = prefetchingCache;
                 break;
             default:
                 throw new IllegalArgumentException("Unknown Cache");
         }
         return delegate;
     }
+
+    /**
+     * It prints miss cost paid and saved by cache and its ghost list
+     * statistics when simulator exits. Same trace replayed with plain and cost
+     * aware LPF shows the miss cost saved by cost aware eviction.
+     *
+     * @param cache
+     */
+    private static void reportStatisticsOnExit(final LPFCache cache) {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String name = cache.isCostAware() ? "Cost aware LPF" : "LPF";
+                System.out.println(name + " cost statistics [Request,Hit,Miss,MissCost,CostSaved,CostSavedRatio] " + cache.getCostStatistics());
+                System.out.println(name + " ghost statistics [GhostHit,GhostReadmission,GhostHitPerMiss] " + cache.getGhostStatistics());
+            }
+        }, "lpf-statistics-report"));
+    }
+
+    /**
+     * It prints the statistics kept by cache when simulator exits.
+     *
+     * @param title
+     *            It is printed before statistics and names its fields
+     * @param statistics
+     */
+    private static void reportStatisticsOnExit(final String title, final CacheStatistics statistics) {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println(title + statistics.getStatistics());
+            }
+        }, "cache-statistics-report"));
+    }
+
+    /**
+     * It prints the parameters chosen by tuner and its tuning history when
+     * simulator exits. Each step is [Time|HitRatio|AccessCountThreshold|
+     * DefaultWindowSize|WindowSizeThreshold|Action].
+     *
+     * @param tuner
+     */
+    private static void reportTuningOnExit(final LPFTuner tuner) {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println("LPF tuned parameters " + tuner.getCurrentParameters());
+                for (LPFTuner.TuningRecord step : tuner.getTuningHistory()) {
+                    System.out.println("LPF tuning step " + step);
+                }
+            }
+        }, "lpf-tuning-report"));
+    }
+
+    /**
+     * It parses the optional parameters which are passed as key=value after
+     * trace file and cache type.
+     *
+     * @param args
+     * @return Map of option name to value
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<String, String>();
+        for (int i = 2; i < args.length; i++) {
+            int separator = args[i].indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Option should be key=value " + args[i]);
+            }
+            options.put(args[i].substring(0, separator), args[i].substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * It restores the cache, statistics and trace position from checkpoint
+     * file if it exists and prepares replay which keeps checkpoint up to date.
+     *
+     * @param cache
+     * @param preprocess
+     * @param checkpointFile
+     * @return ReplayTraces
+     * @throws Exception
+     */
+    private static ReplayTraces resumeFromCheckpoint(Cache cache, Preprocessing preprocess, String checkpointFile)
+            throws Exception {
+        if (!(cache instanceof LPFCache)) {
+            throw new IllegalArgumentException("Checkpoint is supported only for LPF cache");
+        }
+        LPFCache lpfCache = (LPFCache) cache;
+        int totalBatch = preprocess.getTaskPerTimestampList().size();
+        int startBatch = 0;
+        if (new File(checkpointFile).exists()) {
+            ReplayCheckpoint checkpoint = ReplayCheckpoint.load(checkpointFile);
+            checkpoint.restore(lpfCache, totalBatch);
+            startBatch = checkpoint.getNextBatch();
+        }
+        return new ReplayTraces(preprocess.getTaskPerTimestampList(), startBatch, lpfCache, checkpointFile);
+    }
+
+    /**
+     * It restores the cache from snapshot file if it exists. Then snapshot is
+     * written periodically and at shutdown so that restarted simulator starts
+     * with warm cache.
+     *
+     * @param cache
+     * @param snapshotFile
+     * @throws Exception
+     */
+    private static void enableSnapshot(Cache cache, final String snapshotFile)
+            throws Exception {
+        if (!(cache instanceof LPFCache)) {
+            throw new IllegalArgumentException("Snapshot is supported only for LPF cache");
+        }
+        final LPFCache lpfCache = (LPFCache) cache;
+        if (new File(snapshotFile).exists()) {
+            CacheSnapshot.load(snapshotFile).restore(lpfCache);
+        }
+        final Runnable snapshotTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    CacheSnapshot.capture(lpfCache).save(snapshotFile);
+                } catch (Exception ex) {
+                    System.out.println("Problem in writing snapshot " + ex.getMessage());
+                }
+            }
+        };
+        ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "lpf-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        snapshotExecutor.scheduleWithFixedDelay(snapshotTask, LPFConstant.SNAPSHOT_INTERVAL, LPFConstant.SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(snapshotTask, "lpf-snapshot-shutdown"));
+    }
 }
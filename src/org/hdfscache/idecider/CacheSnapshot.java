@@ -0,0 +1,319 @@
+package org.hdfscache.idecider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class is used to take snapshot of LPF cache state and restore it after
+ * restart. Snapshot holds every inode known to the simulator along with its
+ * access count, window size, popularity and window start so cache does not
+ * need to warm up again. Snapshot is written and read through memory mapped
+ * file.
+ *
+ * Layout of snapshot is [Magic Version SnapshotTime InodeCount] followed by
+ * one record per inode [InodeId BlockIndex CreationTime AccessTime AccessCount
+ * WindowSize Popularity StartWindowTime LastAccessTime Size MissCost Cached
+ * PathLength Path]. Blocks of a file which are read by range follow the
+ * record of file with their index, BlockIndex of file itself is -1.
+ *
+ * Restored files are registered before trace is replayed, so create of a
+ * restored file in trace keeps the restored inode.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheSnapshot {
+
+    /**
+     * It is used to identify snapshot file. It is "LPFS" in ASCII.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C504653;
+    /**
+     * It represents the version of snapshot layout.
+     */
+    private static final int SNAPSHOT_VERSION = 3;
+    /**
+     * It represents the size of snapshot header in bytes.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    /**
+     * It represents the size of fixed part of each inode record in bytes.
+     */
+    private static final int RECORD_FIXED_SIZE = 8 + 8 + 8 + 8 + 8 + 8 + 4 + 8 + 8 + 8 + 8 + 1 + 4;
+
+    /**
+     * This represents the time at which snapshot is taken. It is used to shift
+     * the window time of each inode while restoring.
+     */
+    private final long snapshotTime;
+    /**
+     * This represents detached copy of each inode at snapshot time.
+     */
+    private final List<Inode> inodes;
+    /**
+     * This represents block index of each inode in same order or -1 if inode
+     * is file.
+     */
+    private final List<Long> blockIndexes;
+    /**
+     * This represents inode id of files which were present in LPF cache.
+     */
+    private final Set<Long> cachedInodeIds;
+
+    private CacheSnapshot(long snapshotTime, List<Inode> inodes, List<Long> blockIndexes, Set<Long> cachedInodeIds) {
+        this.snapshotTime = snapshotTime;
+        this.inodes = inodes;
+        this.blockIndexes = blockIndexes;
+        this.cachedInodeIds = cachedInodeIds;
+    }
+
+    /**
+     * It captures the current state of all files and given LPF cache. Each
+     * file is copied while holding its lock so copied fields are consistent
+     * with each other.
+     *
+     * @param cache
+     * @return CacheSnapshot
+     */
+    public static CacheSnapshot capture(LPFCache cache) {
+        Set<Long> cachedInodeIds = new HashSet<Long>();
+        for (Inode file : cache.getCachedFiles()) {
+            cachedInodeIds.add(file.getInodeId());
+        }
+        List<Inode> inodes = new ArrayList<Inode>();
+        List<Long> blockIndexes = new ArrayList<Long>();
+        for (Inode file : FileOperation.getFileToInodeMap().values()) {
+            inodes.add(copy(file, cachedInodeIds));
+            blockIndexes.add(-1L);
+            for (Block block : file.getBlocks()) {
+                inodes.add(copy(block, cachedInodeIds));
+                blockIndexes.add(block.getBlockIndex());
+            }
+        }
+        return new CacheSnapshot(System.currentTimeMillis(), inodes, blockIndexes, cachedInodeIds);
+    }
+
+    private static Inode copy(Inode file, Set<Long> cachedInodeIds) {
+        synchronized (file) {
+            Inode copy = new Inode(file.getInodeId(), file.getPath(), file.getCreationtime(), file.getAccesstime(), file.getAccesscount(), cachedInodeIds.contains(file.getInodeId()), file.getWindowsize(), file.getPopularity(), file.getStartWindowTime(), file.getLastAccessTime());
+            copy.setSize(file.getSize());
+            copy.setMissCost(file.getMissCost());
+            return copy;
+        }
+    }
+
+    /**
+     * It returns the number of bytes required to encode this snapshot.
+     *
+     * @return size in bytes
+     */
+    public long encodedSize() {
+        long size = HEADER_SIZE;
+        for (Inode file : inodes) {
+            size += RECORD_FIXED_SIZE + file.getPath().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    /**
+     * It encodes the snapshot into given buffer starting at its current
+     * position.
+     *
+     * @param buffer
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(SNAPSHOT_VERSION);
+        buffer.putLong(snapshotTime);
+        buffer.putInt(inodes.size());
+        for (int i = 0; i < inodes.size(); i++) {
+            Inode file = inodes.get(i);
+            byte[] path = file.getPath().getBytes(StandardCharsets.UTF_8);
+            buffer.putLong(file.getInodeId());
+            buffer.putLong(blockIndexes.get(i));
+            buffer.putLong(file.getCreationtime());
+            buffer.putLong(file.getAccesstime());
+            buffer.putLong(file.getAccesscount());
+            buffer.putLong(file.getWindowsize());
+            buffer.putFloat(file.getPopularity());
+            buffer.putLong(file.getStartWindowTime());
+            buffer.putLong(file.getLastAccessTime());
+            buffer.putLong(file.getSize());
+            buffer.putDouble(file.getMissCost());
+            buffer.put((byte) (file.isCached() ? 1 : 0));
+            buffer.putInt(path.length);
+            buffer.put(path);
+        }
+    }
+
+    /**
+     * It decodes the snapshot from given buffer starting at its current
+     * position.
+     *
+     * @param buffer
+     * @return CacheSnapshot
+     * @throws IOException
+     *             If buffer does not contain valid snapshot
+     */
+    public static CacheSnapshot readFrom(ByteBuffer buffer)
+            throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a valid LPF cache snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported LPF cache snapshot version " + version);
+        }
+        long snapshotTime = buffer.getLong();
+        int inodeCount = buffer.getInt();
+        // Every record takes at least its fixed size, so count is checked
+        // before any list is sized from it
+        if (inodeCount < 0 || inodeCount > buffer.remaining() / RECORD_FIXED_SIZE) {
+            throw new IOException("Inode count " + inodeCount + " does not fit in snapshot of " + buffer.remaining() + " bytes");
+        }
+        List<Inode> inodes = new ArrayList<Inode>(inodeCount);
+        List<Long> blockIndexes = new ArrayList<Long>(inodeCount);
+        Set<Long> cachedInodeIds = new HashSet<Long>();
+        for (int i = 0; i < inodeCount; i++) {
+            if (buffer.remaining() < RECORD_FIXED_SIZE) {
+                throw new IOException("Snapshot is truncated at inode " + i + " of " + inodeCount);
+            }
+            long inodeId = buffer.getLong();
+            long blockIndex = buffer.getLong();
+            if (blockIndex >= 0 && blockIndexes.isEmpty()) {
+                throw new IOException("Block " + blockIndex + " of inode " + inodeId + " is not preceded by its file");
+            }
+            blockIndexes.add(blockIndex);
+            long creationtime = buffer.getLong();
+            long accesstime = buffer.getLong();
+            long accesscount = buffer.getLong();
+            long windowsize = buffer.getLong();
+            float popularity = buffer.getFloat();
+            long startWindowTime = buffer.getLong();
+            long lastAccessTime = buffer.getLong();
+            long size = buffer.getLong();
+            double missCost = buffer.getDouble();
+            boolean cached = buffer.get() == 1;
+            int pathLength = buffer.getInt();
+            if (pathLength < 0 || pathLength > buffer.remaining()) {
+                throw new IOException("Path length " + pathLength + " of inode " + inodeId + " does not fit in snapshot");
+            }
+            if (size <= 0 || missCost < 0) {
+                throw new IOException("Inode " + inodeId + " has invalid size " + size + " or miss cost " + missCost);
+            }
+            byte[] path = new byte[pathLength];
+            buffer.get(path);
+            Inode file = new Inode(inodeId, new String(path, StandardCharsets.UTF_8), creationtime, accesstime, accesscount, cached, windowsize, popularity, startWindowTime, lastAccessTime);
+            file.setSize(size);
+            file.setMissCost(missCost);
+            inodes.add(file);
+            if (cached) {
+                cachedInodeIds.add(inodeId);
+            }
+        }
+        return new CacheSnapshot(snapshotTime, inodes, blockIndexes, cachedInodeIds);
+    }
+
+    /**
+     * It rebuilds file metadata and LPF cache from snapshot in single pass.
+     * All the time fields are shifted by the time elapsed since snapshot so
+     * each window resumes with the time it had left when snapshot was taken.
+     * Block is restored into the file restored just before it.
+     *
+     * @param cache
+     */
+    public void restore(LPFCache cache) {
+        long shift = System.currentTimeMillis() - snapshotTime;
+        Inode parent = null;
+        for (int i = 0; i < inodes.size(); i++) {
+            Inode record = inodes.get(i);
+            Inode state = new Inode(record.getInodeId(), record.getPath(), record.getCreationtime(), shiftTime(record.getAccesstime(), shift), record.getAccesscount(), false, record.getWindowsize(), record.getPopularity(), shiftTime(record.getStartWindowTime(), shift), shiftTime(record.getLastAccessTime(), shift));
+            state.setSize(record.getSize());
+            state.setMissCost(record.getMissCost());
+            Inode file;
+            if (blockIndexes.get(i) < 0) {
+                file = state;
+                FileOperation.register(file);
+                parent = file;
+            } else {
+                Block block = new Block(parent, blockIndexes.get(i), state);
+                parent.restoreBlock(block);
+                Inode.advanceFileCounter(block.getInodeId());
+                file = block;
+            }
+            if (cachedInodeIds.contains(file.getInodeId())) {
+                long remainingWindowTime = (record.getStartWindowTime() + record.getWindowsize()) - snapshotTime;
+                cache.restoreCachedFile(file, remainingWindowTime);
+            }
+        }
+        System.out.println("Restored " + inodes.size() + " files and " + cachedInodeIds.size() + " cached files from snapshot");
+    }
+
+    private static long shiftTime(long time, long shift) {
+        return (time == 0) ? time : time + shift;
+    }
+
+    /**
+     * It writes the snapshot to given file through memory mapped buffer.
+     * Snapshot is first written to temporary file and then moved so the
+     * previous snapshot is never left half written.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void save(String filename)
+            throws IOException {
+        File target = new File(filename);
+        File temp = new File(filename + ".tmp");
+        long size = encodedSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size + " bytes can not be mapped");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+                FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            writeTo(buffer);
+            buffer.force();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * It reads the snapshot from given file through memory mapped buffer.
+     *
+     * @param filename
+     * @return CacheSnapshot
+     * @throws IOException
+     */
+    public static CacheSnapshot load(String filename)
+            throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "r");
+                FileChannel channel = raf.getChannel()) {
+            return readFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public long getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    public int getInodeCount() {
+        return inodes.size();
+    }
+
+    public int getCachedFileCount() {
+        return cachedInodeIds.size();
+    }
+}
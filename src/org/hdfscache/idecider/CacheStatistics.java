@@ -0,0 +1,20 @@
+package org.hdfscache.idecider;
+
+/**
+ * This interface is implemented by cache which keeps its own statistics on
+ * top of hit and miss count. Simulator prints them when it exits.
+ * 
+ * @author jsrudani
+ * 
+ */
+public interface CacheStatistics {
+
+    /**
+     * It returns the statistics of cache. Each implementation documents the
+     * form of its statistics.
+     * 
+     * @return statistics
+     */
+    public String getStatistics();
+
+}
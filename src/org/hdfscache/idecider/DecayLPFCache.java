@@ -0,0 +1,246 @@
+package org.hdfscache.idecider;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class implements LPF cache where popularity of a file is its
+ * exponentially decayed access score. Every access adds one to the score and
+ * score is halved after every half life. Score is stored as (score, last
+ * update) pair in Inode and evaluated lazily so there is no timer task per
+ * file to refresh popularity of idle file.
+ *
+ * Score of every file decays at same rate, so ordering between two files does
+ * not change while they are idle. Cache is ordered on log2 of score relative
+ * to global epoch which keeps value small. This key is computed when file is
+ * put in cache and never changes, so ordering never reads the fields of file
+ * which are changed by concurrent read. Epoch is moved forward periodically
+ * (rebasing) and cache is rebuilt with keys relative to new epoch.
+ *
+ * Like LPF cache, read of a file holds only the lock of that file. Admission
+ * and eviction are serialized so the cache does not grow beyond its size.
+ *
+ * @author jsrudani
+ *
+ */
+public class DecayLPFCache implements Cache, CacheStatistics {
+
+    /**
+     * This represents the global epoch from which decayed score of every file
+     * is measured. It is changed only while holding rebase write lock.
+     */
+    private volatile long epoch = System.currentTimeMillis();
+    private static final Comparator<DecayKey> DECAY_KEY_COMPARATOR = new Comparator<DecayKey>() {
+        @Override
+        public int compare(DecayKey o1, DecayKey o2) {
+            int result = Double.compare(o1.relativeScore, o2.relativeScore);
+            return (result != 0) ? result : Long.compare(o1.inodeId, o2.inodeId);
+        }
+    };
+    /**
+     * This represents the cache sorted on key of file. File with least score
+     * is the first entry. It is replaced only while holding rebase write
+     * lock.
+     */
+    private volatile ConcurrentSkipListMap<DecayKey, Inode> decayCache = new ConcurrentSkipListMap<DecayKey, Inode>(DECAY_KEY_COMPARATOR);
+    /**
+     * This represents the key with which each cached file is present in
+     * cache.
+     */
+    private final Map<Inode, DecayKey> cachedKeys = new ConcurrentHashMap<Inode, DecayKey>();
+    /**
+     * Read and admission hold read lock. Rebase holds write lock so no key is
+     * added or compared while keys are being shifted.
+     */
+    private final ReadWriteLock rebaseLock = new ReentrantReadWriteLock();
+    /**
+     * It is used to serialize admission and eviction of files.
+     */
+    private final Object admissionLock = new Object();
+    private final LPFParameters parameters = new LPFParameters();
+    private final AtomicLong cacheHit = new AtomicLong(0);
+    private final AtomicLong cacheMiss = new AtomicLong(0);
+    private final AtomicLong cacheTotalRequest = new AtomicLong(0);
+    private final AtomicLong rebaseCount = new AtomicLong(0);
+
+    @Override
+    public void read(Inode file) {
+        long currentTime = System.currentTimeMillis();
+        rebaseIfRequired(currentTime);
+        rebaseLock.readLock().lock();
+        try {
+            synchronized (file) {
+                file.incrementAndSetAccesscount();
+                file.setAccesstime(currentTime);
+                cacheTotalRequest.incrementAndGet();
+                if (file.isCached()) {
+                    // Hit. Re-position the file with its new score
+                    cacheHit.incrementAndGet();
+                    decayCache.remove(cachedKeys.get(file));
+                    updateScore(file, currentTime);
+                    DecayKey key = new DecayKey(relativeScore(file), file.getInodeId());
+                    cachedKeys.put(file, key);
+                    decayCache.put(key, file);
+                } else {
+                    // Miss. Cache the file if it is eligible
+                    cacheMiss.incrementAndGet();
+                    updateScore(file, currentTime);
+                    if (file.getAccesscount() > parameters.getAccessCountThreshold()) {
+                        addToDecayCache(file);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            System.out.println("read - > There is some problem");
+            ex.printStackTrace();
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * It adds the file to cache. If cache is full then file with least decayed
+     * score is removed first. File is cached only if its score is higher than
+     * the least popular file. It is called while holding the lock of file.
+     *
+     * @param file
+     */
+    private void addToDecayCache(Inode file) {
+        DecayKey key = new DecayKey(relativeScore(file), file.getInodeId());
+        synchronized (admissionLock) {
+            while (cachedKeys.size() >= LPFConstant.TOTAL_CACHE_ENTRY) {
+                Map.Entry<DecayKey, Inode> leastPopularEntry = decayCache.firstEntry();
+                Inode leastPopularFile = leastPopularEntry.getValue();
+                synchronized (leastPopularFile) {
+                    // Least popular file may be read since it is looked up
+                    if (cachedKeys.get(leastPopularFile) != leastPopularEntry.getKey()) {
+                        continue;
+                    }
+                    if (leastPopularEntry.getKey().relativeScore > key.relativeScore) {
+                        return;
+                    }
+                    decayCache.remove(leastPopularEntry.getKey());
+                    cachedKeys.remove(leastPopularFile);
+                    leastPopularFile.setCached(false);
+                    leastPopularFile.resetFileAccesscount();
+                }
+            }
+            cachedKeys.put(file, key);
+            decayCache.put(key, file);
+            file.setCached(true);
+        }
+        System.out.println("Decay LPF Cache for adding file -> " + file.getInodeId() + " -> " + decayCache.values());
+    }
+
+    /**
+     * It decays the score of file till current time and adds current access
+     * to it.
+     *
+     * @param file
+     * @param currentTime
+     */
+    private void updateScore(Inode file, long currentTime) {
+        file.setDecayScore(decayedScore(file, currentTime) + 1.0d, currentTime);
+    }
+
+    /**
+     * It returns the score of file at given time.
+     *
+     * @param file
+     * @param time
+     * @return decayed score
+     */
+    public double decayedScore(Inode file, long time) {
+        long elapsed = Math.max(0L, time - file.getDecayLastUpdate());
+        return file.getDecayScore() * Math.pow(2.0d, -((double) elapsed) / LPFConstant.DECAY_HALF_LIFE);
+    }
+
+    /**
+     * It returns log2 of file score measured at global epoch. Since every
+     * score decays at same rate, this value does not change while file is
+     * idle and it orders files same as their current score.
+     *
+     * @param file
+     * @return relative score
+     */
+    private double relativeScore(Inode file) {
+        double score = file.getDecayScore();
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return (Math.log(score) / Math.log(2.0d)) + (((double) (file.getDecayLastUpdate() - epoch)) / LPFConstant.DECAY_HALF_LIFE);
+    }
+
+    /**
+     * It moves global epoch forward once rebase interval is elapsed and
+     * rebuilds the cache with new key of every cached file. Keys which are in
+     * the cache are never changed. It should not be called while holding
+     * rebase read lock.
+     *
+     * @param currentTime
+     */
+    private void rebaseIfRequired(long currentTime) {
+        if ((currentTime - epoch) <= LPFConstant.DECAY_REBASE_INTERVAL) {
+            return;
+        }
+        rebaseLock.writeLock().lock();
+        try {
+            if ((currentTime - epoch) > LPFConstant.DECAY_REBASE_INTERVAL) {
+                epoch = currentTime;
+                // No read is in progress, so score of files is stable
+                ConcurrentSkipListMap<DecayKey, Inode> rebasedCache = new ConcurrentSkipListMap<DecayKey, Inode>(DECAY_KEY_COMPARATOR);
+                for (Inode file : decayCache.values()) {
+                    DecayKey key = new DecayKey(relativeScore(file), file.getInodeId());
+                    cachedKeys.put(file, key);
+                    rebasedCache.put(key, file);
+                }
+                decayCache = rebasedCache;
+                rebaseCount.incrementAndGet();
+            }
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+    }
+
+    public AtomicLong getCacheHit() {
+        return cacheHit;
+    }
+
+    public AtomicLong getCacheMiss() {
+        return cacheMiss;
+    }
+
+    public AtomicLong getCacheTotalRequest() {
+        return cacheTotalRequest;
+    }
+
+    /**
+     * It returns the statistics in the form [Request,Hit,Miss,HitRatio,Rebase]
+     */
+    @Override
+    public String getStatistics() {
+        return "[" + cacheTotalRequest.get() + "," + cacheHit.get() + "," + cacheMiss.get() + "," + (((float) cacheHit.get()) / Math.max(1L, cacheTotalRequest.get())) + "," + rebaseCount.get() + "]";
+    }
+
+    /**
+     * This class is the key of file in cache. It does not change once it is
+     * created.
+     *
+     * @author jsrudani
+     *
+     */
+    static class DecayKey {
+        private final double relativeScore;
+        private final long inodeId;
+
+        DecayKey(double relativeScore, long inodeId) {
+            this.relativeScore = relativeScore;
+            this.inodeId = inodeId;
+        }
+    }
+}
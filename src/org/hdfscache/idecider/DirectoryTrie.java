@@ -0,0 +1,176 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class holds the namespace as trie of path components. Every directory
+ * node keeps number of files under it and number of accesses to those files,
+ * so access to a file is rolled up into all its ancestor directories. Access
+ * count of directory is halved every DIRECTORY_HALF_LIFE so it reflects
+ * recent accesses. Halving is applied lazily when node is touched.
+ *
+ * Files are kept by path, not by inode, so path which is created again with
+ * new inode is present only once. Caller resolves path to its current inode.
+ *
+ * @author jsrudani
+ *
+ */
+public class DirectoryTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * It adds the file path to trie if it is not present.
+     *
+     * @param filePath
+     * @return true if path is added
+     */
+    public synchronized boolean register(String filePath) {
+        List<Node> path = walk(filePath, true);
+        Node directory = path.get(path.size() - 1);
+        if (!directory.files.add(filePath)) {
+            return false;
+        }
+        for (Node node : path) {
+            node.fileCount++;
+        }
+        return true;
+    }
+
+    /**
+     * It records an access to the file in every ancestor directory.
+     *
+     * @param file
+     * @param time
+     */
+    public synchronized void recordAccess(Inode file, long time) {
+        register(file.getPath());
+        for (Node node : walk(file.getPath(), false)) {
+            node.decay(time);
+            node.accessCount++;
+        }
+    }
+
+    /**
+     * It returns the mean number of recent accesses per file of the nearest
+     * directory of file which holds at least DIRECTORY_MIN_FILE_COUNT files.
+     * Root is never used since it holds every file.
+     *
+     * @param file
+     * @param time
+     * @return accesses per file or 0 if there is no such directory
+     */
+    public synchronized double prior(Inode file, long time) {
+        List<Node> path = walk(file.getPath(), false);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node directory = path.get(i);
+            if (directory.fileCount >= LPFConstant.DIRECTORY_MIN_FILE_COUNT) {
+                directory.decay(time);
+                return directory.accessCount / directory.fileCount;
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * It returns the path of files under given directory.
+     *
+     * @param directoryPath
+     * @return List of file paths
+     */
+    public synchronized List<String> getFiles(String directoryPath) {
+        List<String> files = new ArrayList<String>();
+        Node directory = root;
+        for (String component : split(directoryPath)) {
+            directory = directory.children.get(component);
+            if (directory == null) {
+                return files;
+            }
+        }
+        LinkedList<Node> pending = new LinkedList<Node>();
+        pending.add(directory);
+        while (!pending.isEmpty()) {
+            Node node = pending.poll();
+            files.addAll(node.files);
+            pending.addAll(node.children.values());
+        }
+        return files;
+    }
+
+    /**
+     * It returns the node of root and every directory on path of file. If
+     * directory is missing and create is false, list ends at its nearest
+     * ancestor.
+     */
+    private List<Node> walk(String filePath, boolean create) {
+        String[] components = split(filePath);
+        List<Node> path = new ArrayList<Node>(components.length);
+        Node node = root;
+        path.add(node);
+        // Last component is the file itself
+        for (int i = 0; i < components.length - 1; i++) {
+            Node child = node.children.get(components[i]);
+            if (child == null) {
+                if (!create) {
+                    return path;
+                }
+                child = new Node();
+                node.children.put(components[i], child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static String[] split(String path) {
+        List<String> components = new ArrayList<String>();
+        for (String component : path.split(LPFConstant.PATH_SEPARATOR)) {
+            if (!component.isEmpty()) {
+                components.add(component);
+            }
+        }
+        return components.toArray(new String[components.size()]);
+    }
+
+    /**
+     * This class represents one directory.
+     *
+     * @author jsrudani
+     *
+     */
+    static class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        /**
+         * This represents the path of files directly in this directory.
+         */
+        private final Set<String> files = new LinkedHashSet<String>();
+        /**
+         * This represents number of files in subtree.
+         */
+        private long fileCount = 0;
+        /**
+         * This represents recent accesses to files in subtree.
+         */
+        private double accessCount = 0;
+        private long lastDecayTime = 0;
+
+        void decay(long time) {
+            if (lastDecayTime == 0) {
+                lastDecayTime = time;
+                return;
+            }
+            long halvings = (time - lastDecayTime) / LPFConstant.DIRECTORY_HALF_LIFE;
+            if (halvings > 0) {
+                accessCount = (halvings >= 64) ? 0 : accessCount / (1L << halvings);
+                lastDecayTime += halvings * LPFConstant.DIRECTORY_HALF_LIFE;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.hdfscache.idecider;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the trace as primitive arrays for replay without
+ * allocation. Every file of trace gets dense id in order of its first
+ * appearance. Every event is [FileId Opcode] and events at same timestamp
+ * form a batch. Batch is [Delay EventEnd] where delay is time (in ms) since
+ * previous batch and events of batch b are [EventEnd(b-1), EventEnd(b)).
+ *
+ * @author jsrudani
+ *
+ */
+public class EventLog {
+
+    public static final byte OPCODE_OPEN = 1;
+    public static final byte OPCODE_CREATE = 2;
+
+    private String[] paths = new String[LPFConstant.EVENT_LOG_INITIAL_CAPACITY];
+    private int fileCount;
+    private int[] fileIds = new int[LPFConstant.EVENT_LOG_INITIAL_CAPACITY];
+    private byte[] opcodes = new byte[LPFConstant.EVENT_LOG_INITIAL_CAPACITY];
+    /**
+     * It holds arguments of create events. It is null till some create
+     * carries arguments since most of the events have none.
+     */
+    private String[] arguments;
+    private int eventCount;
+    private long[] batchDelays = new long[LPFConstant.EVENT_LOG_INITIAL_CAPACITY];
+    private int[] batchEventEnds = new int[LPFConstant.EVENT_LOG_INITIAL_CAPACITY];
+    private int batchCount;
+
+    /**
+     * It reads the trace file. Fields have specific order [Timestamp Filename
+     * Operation Argument*]. Only whole file open and create are supported;
+     * other operations need the default replay.
+     *
+     * @param filename
+     * @return EventLog
+     * @throws IOException
+     */
+    public static EventLog read(String filename)
+            throws IOException {
+        System.out.println("Reading file :" + filename);
+        EventLog log = new EventLog();
+        Map<String, Integer> fileIdByPath = new HashMap<String, Integer>();
+        long previousTimestamp = 0L;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Less number of fields in File");
+                }
+                long timestamp = Long.parseLong(fields[0]);
+                byte opcode;
+                if (LPFConstant.FILE_OPEN.equals(fields[2]) && fields.length == 3) {
+                    opcode = OPCODE_OPEN;
+                } else if (LPFConstant.FILE_CREATE.equals(fields[2])) {
+                    opcode = OPCODE_CREATE;
+                } else {
+                    throw new IllegalArgumentException("Operation " + fields[2] + " is not supported by primitive replay");
+                }
+                Integer fileId = fileIdByPath.get(fields[1]);
+                if (fileId == null) {
+                    fileId = log.addFile(fields[1]);
+                    fileIdByPath.put(fields[1], fileId);
+                }
+                if (log.batchCount == 0 || timestamp != previousTimestamp) {
+                    log.addBatch(log.batchCount == 0 ? 0L : timestamp - previousTimestamp);
+                    previousTimestamp = timestamp;
+                }
+                log.addEvent(fileId, opcode, fields);
+            }
+        }
+        System.out.println("Finished reading file :" + filename + " events " + log.eventCount + " batches " + log.batchCount + " files " + log.fileCount);
+        return log;
+    }
+
+    private int addFile(String path) {
+        if (fileCount == paths.length) {
+            paths = Arrays.copyOf(paths, paths.length * 2);
+        }
+        paths[fileCount] = path;
+        return fileCount++;
+    }
+
+    private void addBatch(long delay) {
+        if (batchCount == batchDelays.length) {
+            batchDelays = Arrays.copyOf(batchDelays, batchDelays.length * 2);
+            batchEventEnds = Arrays.copyOf(batchEventEnds, batchEventEnds.length * 2);
+        }
+        batchDelays[batchCount++] = delay;
+    }
+
+    private void addEvent(int fileId, byte opcode, String[] fields) {
+        if (eventCount == fileIds.length) {
+            fileIds = Arrays.copyOf(fileIds, fileIds.length * 2);
+            opcodes = Arrays.copyOf(opcodes, opcodes.length * 2);
+            if (arguments != null) {
+                arguments = Arrays.copyOf(arguments, arguments.length * 2);
+            }
+        }
+        if (fields.length > 3) {
+            String argument = fields[3];
+            for (int i = 4; i < fields.length; i++) {
+                argument += LPFConstant.OPERATION_ARGUMENT_DELIMITER + fields[i];
+            }
+            if (arguments == null) {
+                arguments = new String[fileIds.length];
+            }
+            arguments[eventCount] = argument;
+        }
+        fileIds[eventCount] = fileId;
+        opcodes[eventCount] = opcode;
+        eventCount++;
+        batchEventEnds[batchCount - 1] = eventCount;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public String getPath(int fileId) {
+        return paths[fileId];
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public long getBatchDelay(int batch) {
+        return batchDelays[batch];
+    }
+
+    public int getBatchStart(int batch) {
+        return batch == 0 ? 0 : batchEventEnds[batch - 1];
+    }
+
+    public int getBatchEnd(int batch) {
+        return batchEventEnds[batch];
+    }
+
+    public int getFileId(int event) {
+        return fileIds[event];
+    }
+
+    public byte getOpcode(int event) {
+        return opcodes[event];
+    }
+
+    public String getArgument(int event) {
+        return arguments == null ? null : arguments[event];
+    }
+}
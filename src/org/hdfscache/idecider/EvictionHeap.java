@@ -0,0 +1,237 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class is the eviction index of LPF cache. It is d-ary min heap of files
+ * on their eviction key (popularity), so least popular file is always at root.
+ * Key of every file is kept in heap itself and changes only through update, so
+ * file can change its popularity any time without breaking the order. Position
+ * of file in heap is stored in its Inode as handle which makes lookup, removal
+ * and update of file O(log n) without searching the heap. Wider heap is
+ * shallower and keeps children of node next to each other in memory.
+ *
+ * A file can be in only one heap at a time. All the operations are atomic.
+ *
+ * @author jsrudani
+ *
+ */
+public class EvictionHeap {
+
+    private final int arity;
+    private Inode[] files;
+    private double[] keys;
+    private int size = 0;
+
+    public EvictionHeap(int arity, int initialCapacity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity of heap should be at least 2");
+        }
+        this.arity = arity;
+        this.files = new Inode[Math.max(1, initialCapacity)];
+        this.keys = new double[files.length];
+    }
+
+    /**
+     * It adds the file with given key.
+     *
+     * @param file
+     * @param key
+     * @return false if file is already present
+     */
+    public synchronized boolean add(Inode file, double key) {
+        if (contains(file)) {
+            return false;
+        }
+        if (size == files.length) {
+            files = Arrays.copyOf(files, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        place(size, file, key);
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * It changes the key of file in place.
+     *
+     * @param file
+     * @param key
+     * @return false if file is not present
+     */
+    public synchronized boolean update(Inode file, double key) {
+        if (!contains(file)) {
+            return false;
+        }
+        int position = file.getEvictionHandle();
+        double oldKey = keys[position];
+        keys[position] = key;
+        if (key < oldKey) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+        return true;
+    }
+
+    /**
+     * It removes the file.
+     *
+     * @param file
+     * @return false if file is not present
+     */
+    public synchronized boolean remove(Inode file) {
+        if (!contains(file)) {
+            return false;
+        }
+        removeAt(file.getEvictionHandle());
+        return true;
+    }
+
+    /**
+     * It returns the file with least key without removing it.
+     *
+     * @return file or null if heap is empty
+     */
+    public synchronized Inode peek() {
+        return (size == 0) ? null : files[0];
+    }
+
+    /**
+     * It removes and returns the file with least key.
+     *
+     * @return file or null if heap is empty
+     */
+    public synchronized Inode poll() {
+        if (size == 0) {
+            return null;
+        }
+        Inode file = files[0];
+        removeAt(0);
+        return file;
+    }
+
+    public synchronized boolean contains(Inode file) {
+        int position = file.getEvictionHandle();
+        return position >= 0 && position < size && files[position] == file;
+    }
+
+    /**
+     * It returns the key with which file is ordered.
+     *
+     * @param file
+     * @return key or NaN if file is not present
+     */
+    public synchronized double getKey(Inode file) {
+        return contains(file) ? keys[file.getEvictionHandle()] : Double.NaN;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * It returns the copy of files in ascending order of key.
+     *
+     * @return List of files
+     */
+    public synchronized List<Inode> sortedFiles() {
+        Integer[] positions = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return less(o1, o2) ? -1 : (less(o2, o1) ? 1 : 0);
+            }
+        });
+        List<Inode> sortedFiles = new ArrayList<Inode>(size);
+        for (Integer position : positions) {
+            sortedFiles.add(files[position]);
+        }
+        return sortedFiles;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (Inode file : sortedFiles()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(file).append('=').append(file.getInodeId());
+        }
+        return builder.append('}').toString();
+    }
+
+    private void removeAt(int position) {
+        Inode removed = files[position];
+        size--;
+        if (position != size) {
+            place(position, files[size], keys[size]);
+            files[size] = null;
+            siftDown(position);
+            siftUp(position);
+        } else {
+            files[size] = null;
+        }
+        removed.setEvictionHandle(-1);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (!less(position, parent)) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                return;
+            }
+            int smallest = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (less(child, smallest)) {
+                    smallest = child;
+                }
+            }
+            if (!less(smallest, position)) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    /**
+     * Files with same key are ordered on inode id so order is total.
+     */
+    private boolean less(int i, int j) {
+        int result = Double.compare(keys[i], keys[j]);
+        return (result != 0) ? (result < 0) : (files[i].getInodeId() < files[j].getInodeId());
+    }
+
+    private void swap(int i, int j) {
+        Inode file = files[i];
+        double key = keys[i];
+        place(i, files[j], keys[j]);
+        place(j, file, key);
+    }
+
+    private void place(int position, Inode file, double key) {
+        files[position] = file;
+        keys[position] = key;
+        file.setEvictionHandle(position);
+    }
+}
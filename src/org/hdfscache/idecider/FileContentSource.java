@@ -0,0 +1,33 @@
+package org.hdfscache.idecider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface represents the source from which content of a file is loaded
+ * when file is admitted to cache. For e.g. DataNode or local directory.
+ * 
+ * @author jsrudani
+ * 
+ */
+public interface FileContentSource {
+
+    /**
+     * It returns the size of file content in bytes.
+     * 
+     * @param file
+     * @throws IOException
+     */
+    public long getSize(Inode file) throws IOException;
+
+    /**
+     * It loads the content of file into given buffers in order. Buffers
+     * together have room for exactly the size of the file.
+     * 
+     * @param file
+     * @param buffers
+     * @throws IOException
+     */
+    public void load(Inode file, ByteBuffer[] buffers) throws IOException;
+
+}
@@ -1,6 +1,8 @@
 package org.hdfscache.idecider;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -40,19 +42,123 @@ public class FileOperation {
         }
     }
 
+    /**
+     * It performs file read operation for batch of files. Files which are not
+     * created are skipped.
+     * 
+     * @param filenames
+     *            The files to be read
+     * @return hit/miss of each file which is read
+     */
+    public static boolean[] openAll(List<String> filenames, Cache cache) {
+        System.out.println("Open " + filenames + " at " + System.currentTimeMillis());
+        List<Inode> files = new ArrayList<Inode>(filenames.size());
+        for (String filename : filenames) {
+            Inode fileInodeInfo = fileToInodeMap.get(filename);
+            if (fileInodeInfo != null) {
+                files.add(fileInodeInfo);
+            } else {
+                System.out.println("Since file is not created so Open is invalid for file " + filename);
+            }
+        }
+        return cache.readAll(files);
+    }
+
+    /**
+     * It performs read operation on part of given file. Range is either
+     * single offset [Offset] which reads the block containing offset or
+     * [StartOffset-EndOffset] where end offset is exclusive.
+     * 
+     * @param filename
+     *            The file to be read
+     * @param range
+     *            The offset or range to be read
+     * @throws IllegalArgumentException
+     */
+    public static void open(String filename, String range, Cache cache)
+            throws IllegalArgumentException {
+        System.out.println("Open " + filename + " range " + range + " at " + System.currentTimeMillis());
+        long offset = 0L;
+        long length = 0L;
+        int separator = range.indexOf(LPFConstant.RANGE_DELIMITER);
+        if (separator < 0) {
+            offset = Long.parseLong(range);
+            length = LPFConstant.BLOCK_SIZE - (offset % LPFConstant.BLOCK_SIZE);
+        } else {
+            offset = Long.parseLong(range.substring(0, separator));
+            length = Long.parseLong(range.substring(separator + 1)) - offset;
+        }
+        if (offset < 0 || length <= 0) {
+            throw new IllegalArgumentException("Invalid range " + range + " for file " + filename);
+        }
+        Inode fileInodeInfo = fileToInodeMap.get(filename);
+        if (fileInodeInfo != null) {
+            cache.readRange(fileInodeInfo, offset, length);
+        } else {
+            System.out.println("Since file is not created so Open is invalid for file " + filename);
+        }
+    }
+
     /**
      * It is used to create file metadata. It initialize the inode structure for
      * given file. If any error in creating inode it throws exception. Inode by
-     * default contains default value.
+     * default contains default value. If file is already created, for e.g.
+     * restored from snapshot or preloaded, its inode is kept as it is so
+     * cached state of file is not lost.
      * 
      * @param filename
+     * @return Inode of the file
      * @throws Exception
      */
-    public static void create(String filename)
+    public static Inode create(String filename)
             throws Exception {
         long creationtime = System.currentTimeMillis();
         System.out.println("Create " + filename + " at " + creationtime);
-        fileToInodeMap.put(filename, new Inode(filename, creationtime));
+        return createIfAbsent(new Inode(filename, creationtime));
+    }
+
+    /**
+     * It creates the file with size and cost of miss given in trace.
+     * Arguments are [Size] or [Size#MissCost]. Missing value is taken from
+     * default cost model. If file is already created its inode is kept as it
+     * is.
+     * 
+     * @param filename
+     * @param arguments
+     * @return Inode of the file
+     * @throws Exception
+     */
+    public static Inode create(String filename, String arguments)
+            throws Exception {
+        String[] sizeNCost = arguments.split(LPFConstant.OPERATION_ARGUMENT_DELIMITER);
+        long creationtime = System.currentTimeMillis();
+        System.out.println("Create " + filename + " " + arguments + " at " + creationtime);
+        Inode file = new Inode(filename, creationtime);
+        file.setSize(Long.parseLong(sizeNCost[0]));
+        if (sizeNCost.length > 1) {
+            file.setMissCost(Double.parseDouble(sizeNCost[1]));
+        }
+        return createIfAbsent(file);
+    }
+
+    private static Inode createIfAbsent(Inode file) {
+        Inode existing = fileToInodeMap.putIfAbsent(file.getPath(), file);
+        if (existing != null) {
+            System.out.println("File " + file.getPath() + " is already created");
+            return existing;
+        }
+        return file;
+    }
+
+    /**
+     * It is used to register already built inode for a file. It is used while
+     * restoring file metadata from snapshot.
+     * 
+     * @param file
+     */
+    static void register(Inode file) {
+        fileToInodeMap.put(file.getPath(), file);
+        Inode.advanceFileCounter(file.getInodeId());
     }
 
     /**
@@ -1,5 +1,6 @@
 package org.hdfscache.idecider;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimerTask;
@@ -23,11 +24,20 @@ public class FileOperationPerTimestampTask extends
     @Override
     public void run() {
         try {
-            // Traverse the list and execute transaction
+            // Traverse the list and execute transaction. Consecutive open of
+            // whole file are read as one batch.
+            List<String> openBatch = new ArrayList<String>();
             Iterator<LPFEntry<String, String>> transactionItr = filenameNOperationEntryList.iterator();
             while (transactionItr.hasNext()) {
-                executeTransaction(transactionItr.next());
+                LPFEntry<String, String> transaction = transactionItr.next();
+                if (LPFConstant.FILE_OPEN.equals(transaction.getValue())) {
+                    openBatch.add(transaction.getKey());
+                    continue;
+                }
+                flushOpenBatch(openBatch);
+                executeTransaction(transaction);
             }
+            flushOpenBatch(openBatch);
         } catch (Exception ex) {
             System.out.println("Problem in executing transaction " + ex.getMessage());
         } finally {
@@ -35,6 +45,13 @@ public class FileOperationPerTimestampTask extends
         }
     }
 
+    private void flushOpenBatch(List<String> openBatch) {
+        if (!openBatch.isEmpty()) {
+            FileOperation.openAll(openBatch, cache);
+            openBatch.clear();
+        }
+    }
+
     /**
      * It is used to check which operation is performed on file and then execute
      * that operation
@@ -45,14 +62,34 @@ public class FileOperationPerTimestampTask extends
     private void executeTransaction(
             LPFEntry<String, String> transaction)
             throws Exception {
-        String operation = transaction.getValue();
+        String[] operationNArgument = transaction.getValue().split(LPFConstant.OPERATION_ARGUMENT_DELIMITER, 2);
+        String operation = operationNArgument[0];
         String filename = transaction.getKey();
         switch (operation) {
             case LPFConstant.FILE_OPEN:
-                FileOperation.open(filename,cache);
+                if (operationNArgument.length > 1) {
+                    FileOperation.open(filename, operationNArgument[1], cache);
+                } else {
+                    FileOperation.open(filename,cache);
+                }
                 break;
             case LPFConstant.FILE_CREATE:
-                FileOperation.create(filename);
+                Inode file = (operationNArgument.length > 1) ? FileOperation.create(filename, operationNArgument[1]) : FileOperation.create(filename);
+                cache.onCreate(file);
+                break;
+            case LPFConstant.NODE_JOIN:
+                // File name field holds the node name
+                cache.addNode(filename);
+                break;
+            case LPFConstant.NODE_LEAVE:
+                cache.removeNode(filename);
+                break;
+            case LPFConstant.DIRECTORY_ADMIT:
+                // File name field holds the directory
+                cache.admitSubtree(filename);
+                break;
+            case LPFConstant.DIRECTORY_EVICT:
+                cache.evictSubtree(filename);
                 break;
             default:
                 System.out.println("Unknown File operation");
@@ -0,0 +1,38 @@
+package org.hdfscache.idecider;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class computes 64 bit hash of string. FNV-1a over UTF-8 bytes of
+ * string is followed by finalizer of MurmurHash3 so every bit of hash depends
+ * on every byte. It is shared by trace analyzer and cache cluster so same
+ * path always hashes to same value.
+ *
+ * @author jsrudani
+ *
+ */
+public class FnvHash {
+
+    private FnvHash() {
+    }
+
+    /**
+     * It returns 64 bit hash of value.
+     *
+     * @param value
+     * @return hash
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,39 @@
+package org.hdfscache.idecider;
+
+/**
+ * This class represents one item tracked by space saving with its count and
+ * error. True frequency of item lies in [Count - Error, Count].
+ *
+ * @author jsrudani
+ *
+ */
+public class FrequentItem {
+
+    private final String item;
+    private final long count;
+    private final long error;
+
+    FrequentItem(String item, long count, long error) {
+        this.item = item;
+        this.count = count;
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + item + "," + count + "," + error + "]";
+    }
+
+    public String getItem() {
+        return item;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getError() {
+        return error;
+    }
+
+}
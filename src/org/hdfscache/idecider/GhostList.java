@@ -0,0 +1,172 @@
+package org.hdfscache.idecider;
+
+import java.util.Arrays;
+
+/**
+ * This class remembers the files which are recently removed from cache along
+ * with the popularity and window size they had at removal. Only inode id is
+ * kept, not the file itself. Entries are kept in ring of fixed capacity so the
+ * oldest entry is forgotten first (FIFO). Capacity of 0 disables it. Slot of
+ * inode id is found through open addressing table of primitive arrays, so
+ * looking up a file which is not remembered does not allocate.
+ *
+ * @author jsrudani
+ *
+ */
+public class GhostList {
+
+    private final int capacity;
+    private final long[] inodeIds;
+    private final float[] popularities;
+    private final long[] windowSizes;
+    /**
+     * This represents whether slot holds an entry. Entry which is removed
+     * leaves empty slot behind.
+     */
+    private final boolean[] occupied;
+    /**
+     * This represents the mapping of inode id -> slot. Table uses linear
+     * probing and its size is power of 2 at least twice the capacity. Empty
+     * entry has slot -1.
+     */
+    private final long[] indexKeys;
+    private final int[] indexSlots;
+    private int size = 0;
+    /**
+     * This represents the slot which is written next.
+     */
+    private int nextSlot = 0;
+
+    public GhostList(int capacity) {
+        this.capacity = capacity;
+        this.inodeIds = new long[capacity];
+        this.popularities = new float[capacity];
+        this.windowSizes = new long[capacity];
+        this.occupied = new boolean[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(1, capacity) * 2) * 2;
+        this.indexKeys = new long[tableSize];
+        this.indexSlots = new int[tableSize];
+        Arrays.fill(indexSlots, -1);
+    }
+
+    /**
+     * It remembers the removed file. If list is full the oldest entry is
+     * forgotten.
+     *
+     * @param file
+     * @param popularity
+     *            Popularity of file at removal
+     * @param windowSize
+     *            Window size of file at removal
+     */
+    public synchronized void add(Inode file, float popularity, long windowSize) {
+        if (capacity == 0) {
+            return;
+        }
+        int slot = removeSlot(file.getInodeId());
+        if (slot >= 0) {
+            occupied[slot] = false;
+        }
+        if (occupied[nextSlot]) {
+            removeSlot(inodeIds[nextSlot]);
+        }
+        inodeIds[nextSlot] = file.getInodeId();
+        popularities[nextSlot] = popularity;
+        windowSizes[nextSlot] = windowSize;
+        occupied[nextSlot] = true;
+        putSlot(file.getInodeId(), nextSlot);
+        nextSlot = (nextSlot + 1) % capacity;
+    }
+
+    /**
+     * It removes the entry of file.
+     *
+     * @param file
+     * @return Ghost entry of file or null if file is not remembered
+     */
+    public synchronized Ghost remove(Inode file) {
+        int slot = removeSlot(file.getInodeId());
+        if (slot < 0) {
+            return null;
+        }
+        occupied[slot] = false;
+        return new Ghost(popularities[slot], windowSizes[slot]);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int indexOf(long inodeId) {
+        long hash = inodeId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (indexKeys.length - 1);
+    }
+
+    private void putSlot(long inodeId, int slot) {
+        int index = indexOf(inodeId);
+        while (indexSlots[index] >= 0) {
+            index = (index + 1) & (indexKeys.length - 1);
+        }
+        indexKeys[index] = inodeId;
+        indexSlots[index] = slot;
+        size++;
+    }
+
+    /**
+     * It removes inode id from index. Entries after removed one are shifted
+     * back so that probing never stops at a hole.
+     *
+     * @param inodeId
+     * @return slot of inode id or -1 if it is not present
+     */
+    private int removeSlot(long inodeId) {
+        int mask = indexKeys.length - 1;
+        int index = indexOf(inodeId);
+        while (indexSlots[index] >= 0 && indexKeys[index] != inodeId) {
+            index = (index + 1) & mask;
+        }
+        int slot = indexSlots[index];
+        if (slot < 0) {
+            return -1;
+        }
+        size--;
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (indexSlots[next] >= 0) {
+            int home = indexOf(indexKeys[next]);
+            // Move entry back if its home is not between hole and its position
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                indexKeys[hole] = indexKeys[next];
+                indexSlots[hole] = indexSlots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        indexSlots[hole] = -1;
+        return slot;
+    }
+
+    /**
+     * This class represents what is remembered about removed file.
+     *
+     * @author jsrudani
+     *
+     */
+    public static class Ghost {
+        private final float popularity;
+        private final long windowSize;
+
+        Ghost(float popularity, long windowSize) {
+            this.popularity = popularity;
+            this.windowSize = windowSize;
+        }
+
+        public float getPopularity() {
+            return popularity;
+        }
+
+        public long getWindowSize() {
+            return windowSize;
+        }
+    }
+}
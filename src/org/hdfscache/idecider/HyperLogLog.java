@@ -0,0 +1,73 @@
+package org.hdfscache.idecider;
+
+import java.util.Arrays;
+
+/**
+ * This class estimates number of distinct items in a stream with fixed memory.
+ * Hash of item picks one of 2^precision registers and register keeps maximum
+ * number of leading zeros seen in rest of the hash. Estimate is harmonic mean
+ * of registers. Standard error is about 1.04 / sqrt(2^precision). For small
+ * cardinality linear counting of empty registers is used.
+ *
+ * @author jsrudani
+ *
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision should be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * It adds item with given 64 bit hash.
+     *
+     * @param hash
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Rank is position of first 1 bit in rest of the hash. Sentinel bit
+        // keeps rank bounded when rest of the hash is 0.
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * It returns the estimated number of distinct items added.
+     *
+     * @return Estimate
+     */
+    public long cardinality() {
+        int registerCount = registers.length;
+        double sum = 0;
+        int emptyRegister = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                emptyRegister++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && emptyRegister > 0) {
+            estimate = registerCount * Math.log((double) registerCount / emptyRegister);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * It forgets all the items added.
+     */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+}
@@ -1,5 +1,10 @@
 package org.hdfscache.idecider;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -69,6 +74,44 @@ public class Inode {
      * Whenever file is uncache or not eligible for caching the value is reset.
      */
     private volatile long startWindowTime;
+    /**
+     * It denotes the exponentially decayed access score of a file at
+     * decayLastUpdate. It is used by decay based popularity where score is
+     * evaluated lazily instead of recalculating at every window expiration.
+     */
+    private volatile double decayScore;
+    /**
+     * It denotes the time at which decay score was last updated.
+     */
+    private volatile long decayLastUpdate;
+    /**
+     * It denotes the blocks of a file which are accessed so far by their
+     * index. Block is created when it is accessed first time, so map holds
+     * only accessed blocks. Whole file access does not create blocks.
+     */
+    private Map<Long, Block> blocks;
+    /**
+     * It denotes the size of a file in bytes. It is used by cost aware
+     * eviction to compare the cost of miss per byte of cache.
+     */
+    private volatile long size = LPFConstant.DEFAULT_FILE_SIZE;
+    /**
+     * It denotes the cost of reading a file when it is not cached. For e.g. a
+     * file on remote or erasure coded storage costs more than a file with
+     * local replica.
+     */
+    private volatile double missCost = LPFConstant.DEFAULT_MISS_COST;
+    /**
+     * It denotes the eviction priority of a file used by cost aware
+     * eviction. It is set when file is added to cache and does not change
+     * while file is in cache.
+     */
+    private volatile double costPriority;
+    /**
+     * It denotes the position of a file in eviction heap of the cache which
+     * holds it. It is -1 when file is not in any eviction heap.
+     */
+    private volatile int evictionHandle = -1;
 
     Inode(String filename, long createtime) {
         this(fileCounter.longValue(), filename, createtime, LPFConstant.DEFAULT_ACCESS_TIME, LPFConstant.DEFAULT_ACCESS_COUNT, false, LPFConstant.DEFAULT_WINDOW_SIZE, LPFConstant.DEFAULT_POPULARITY_VALUE, LPFConstant.DEFAULT_START_WINDOW_TIME, LPFConstant.DEFAULT_LAST_ACCESS_TIME);
@@ -92,6 +135,20 @@ public class Inode {
         this.lastAccessTime = lastAccessTime;
     }
 
+    /**
+     * It makes sure that file counter is greater than given inode id. It is
+     * used when inodes are restored from snapshot so newly created file does
+     * not reuse restored inode id.
+     * 
+     * @param inodeid
+     */
+    static void advanceFileCounter(long inodeid) {
+        long current = fileCounter.get();
+        while (current <= inodeid && !fileCounter.compareAndSet(current, inodeid + 1)) {
+            current = fileCounter.get();
+        }
+    }
+
     @Override
     public String toString() {
         return inodeId + "|" + path + "|" + accesscount + "|" + windowsize + "|" + isCached + "|" + creationtime + "|" + accesstime + "|" + popularity;
@@ -199,6 +256,104 @@ public class Inode {
         this.startWindowTime = 0;
     }
 
+    public double getDecayScore() {
+        return decayScore;
+    }
+
+    public long getDecayLastUpdate() {
+        return decayLastUpdate;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size of file should be positive " + size);
+        }
+        this.size = size;
+    }
+
+    public double getMissCost() {
+        return missCost;
+    }
+
+    public void setMissCost(double missCost) {
+        if (missCost < 0) {
+            throw new IllegalArgumentException("Miss cost of file should not be negative " + missCost);
+        }
+        this.missCost = missCost;
+    }
+
+    public double getCostPriority() {
+        return costPriority;
+    }
+
+    public void setCostPriority(double costPriority) {
+        this.costPriority = costPriority;
+    }
+
+    int getEvictionHandle() {
+        return evictionHandle;
+    }
+
+    void setEvictionHandle(int evictionHandle) {
+        this.evictionHandle = evictionHandle;
+    }
+
+    /**
+     * It is used to set decay score along with the time at which score is
+     * valid. Both values are set together under file lock.
+     * 
+     * @param decayScore
+     * @param decayLastUpdate
+     */
+    public synchronized void setDecayScore(double decayScore, long decayLastUpdate) {
+        this.decayScore = decayScore;
+        this.decayLastUpdate = decayLastUpdate;
+    }
+
+    /**
+     * It returns the block at given index. Block is created if it is not
+     * accessed before.
+     * 
+     * @param blockIndex
+     * @return Block
+     */
+    public synchronized Block getOrCreateBlock(long blockIndex) {
+        if (blocks == null) {
+            blocks = new TreeMap<Long, Block>();
+        }
+        Block block = blocks.get(blockIndex);
+        if (block == null) {
+            block = new Block(this, blockIndex);
+            blocks.put(blockIndex, block);
+        }
+        return block;
+    }
+
+    /**
+     * It adds the block restored from snapshot.
+     * 
+     * @param block
+     */
+    synchronized void restoreBlock(Block block) {
+        if (blocks == null) {
+            blocks = new TreeMap<Long, Block>();
+        }
+        blocks.put(block.getBlockIndex(), block);
+    }
+
+    /**
+     * It returns the blocks accessed so far in the order of their index.
+     * 
+     * @return Immutable List of Block
+     */
+    public synchronized List<Block> getBlocks() {
+        return (blocks == null) ? Collections.<Block> emptyList() : Collections.unmodifiableList(new ArrayList<Block>(blocks.values()));
+    }
+
     /**
      * It is used to store last access time for a file. Initially when access
      * time for a file is default value, it checks if access time is default
@@ -1,109 +1,305 @@
 package org.hdfscache.idecider;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
 
 /**
- * This class implements LPF cache.
+ * This class implements LPF cache. Each instance holds its own cache and
+ * statistics so several instances can run side by side, for e.g. as nodes of
+ * a cache cluster.
+ * 
+ * In cost aware mode, files are ordered on GreedyDual priority
+ * H = L + Popularity * MissCost / Size instead of popularity alone. L is
+ * inflation value which is raised to priority of every file removed to make
+ * room. New and re-ranked files start from current L so files which stay idle
+ * in cache age relatively without re-sorting the cache.
  * 
  * @author jrrudani
  * 
  */
 public class LPFCache implements Cache {
     /**
-     * This represents Least Popular File cache. It is thread safe and efficient
-     * as it locks certain region of Map not the entire Map. It is sorted based
-     * on Popularity value.
+     * This represents Least Popular File cache. It is heap ordered on
+     * popularity value (or GreedyDual priority in cost aware mode) with least
+     * popular file at root. Key is kept in heap so it is updated in place when
+     * popularity of file changes. Membership of file changes only while lock
+     * of file is held.
      */
-    private static volatile ConcurrentSkipListMap<Inode, Long> LPFCACHE = new ConcurrentSkipListMap<Inode, Long>(new Comparator<Inode>() {
-        @Override
-        public int compare(Inode o1, Inode o2) {
-            if (o1.equals(o2)) {
-                return 0;
-            }
-            return (o1.getPopularity() < o2.getPopularity() ? -1 : 1);
-        }
-    });
+    private final EvictionHeap LPFCACHE = new EvictionHeap(LPFConstant.EVICTION_HEAP_ARITY, (int) LPFConstant.TOTAL_CACHE_ENTRY);
+    /**
+     * It represents whether eviction is cost aware.
+     */
+    private final boolean costAware;
+    /**
+     * This represents inflation value L of GreedyDual priority. It is used
+     * only in cost aware mode.
+     */
+    private volatile double costInflation = 0.0;
+    /**
+     * This represents total cost paid for misses.
+     */
+    private final DoubleAdder LPF_CACHE_MISS_COST = new DoubleAdder();
+    /**
+     * This represents total cost of misses avoided by hits.
+     */
+    private final DoubleAdder LPF_CACHE_COST_SAVED = new DoubleAdder();
     /**
      * This represents the current total number of cached file. Every time file
      * is added to LPF cache, count is incremented atomically.
      */
-    private static volatile AtomicLong numberOfCachedFile = new AtomicLong(0);
+    private final AtomicLong numberOfCachedFile = new AtomicLong(0);
     /**
      * This represents the total number of cache hit. Every time file is
      * accessed and it is already cached then hit count is incremented
      * atomically.
      */
-    private static volatile AtomicLong LPF_CACHE_HIT = new AtomicLong(0);
+    private final AtomicLong LPF_CACHE_HIT = new AtomicLong(0);
     /**
      * This represents the total number of cache miss. Every time file is
      * accessed and it is not cached then miss count is incremented atomically.
      */
-    private static volatile AtomicLong LPF_CACHE_MISS = new AtomicLong(0);
+    private final AtomicLong LPF_CACHE_MISS = new AtomicLong(0);
     /**
      * This represents the total number of request. Every time file is accessed
      * then request count is incremented atomically.
      */
-    private static volatile AtomicLong LPF_CACHE_TOTAL_REQUEST = new AtomicLong(0);
+    private final AtomicLong LPF_CACHE_TOTAL_REQUEST = new AtomicLong(0);
+    /**
+     * This represents the total number of bytes read from cached blocks. It
+     * is counted only for range read.
+     */
+    private final AtomicLong LPF_CACHE_BYTE_HIT = new AtomicLong(0);
+    /**
+     * This represents the total number of bytes read from blocks which are not
+     * cached. It is counted only for range read.
+     */
+    private final AtomicLong LPF_CACHE_BYTE_MISS = new AtomicLong(0);
     /**
      * This represents collection of all popularity values in ascending order.
      */
-    private static volatile ConcurrentSkipListSet<Float> popularityOrderedValueSet = new ConcurrentSkipListSet<Float>();
+    private final ConcurrentSkipListSet<Float> popularityOrderedValueSet = new ConcurrentSkipListSet<Float>();
     /**
      * Executor which is used to submit the cache and uncache task. It is used
      * to spawn new thread to re-calculate the popularity at window expiration.
      * It also judge new window size based on popularity value.
      */
     private final ScheduledExecutorService cacheUncacheTaskExecutor = Executors.newScheduledThreadPool(LPFConstant.THREAD_POOL_SIZE);
+    /**
+     * This represents the listeners which are notified whenever file is
+     * removed from LPF cache.
+     */
+    private final List<CacheEvictionListener> evictionListeners = new CopyOnWriteArrayList<CacheEvictionListener>();
+    /**
+     * This represents the store which holds content of cached files. It is
+     * null when cache only decides which files are cached.
+     */
+    private volatile SlabContentStore contentStore;
+    /**
+     * This represents recently removed files and their popularity at removal.
+     * Miss on such file is ghost hit and file can be admitted again without
+     * waiting for access count threshold.
+     */
+    private final GhostList ghostList = new GhostList(LPFConstant.GHOST_LIST_CAPACITY);
+    /**
+     * This represents the total number of misses on files present in ghost
+     * list.
+     */
+    private final AtomicLong LPF_CACHE_GHOST_HIT = new AtomicLong(0);
+    /**
+     * This represents the total number of files admitted again because of
+     * ghost hit.
+     */
+    private final AtomicLong LPF_CACHE_GHOST_READMISSION = new AtomicLong(0);
+    /**
+     * This represents total size (in bytes) of files present in cache.
+     */
+    private final AtomicLong cachedBytes = new AtomicLong(0);
+    /**
+     * This represents the background reclaimer. It is null when least popular
+     * file is removed by admission itself.
+     */
+    private volatile Reclaimer reclaimer;
+    /**
+     * This represents the parameters of this cache. They are changed by tuner
+     * while cache is running.
+     */
+    private final LPFParameters parameters = new LPFParameters();
+    /**
+     * This represents number of admission tasks which are submitted but not
+     * yet finished. File of such task is marked cached but is not yet in
+     * eviction heap.
+     */
+    private final AtomicInteger pendingAdmission = new AtomicInteger(0);
+
+    public LPFCache() {
+        this(false);
+    }
+
+    /**
+     * @param costAware
+     *            If true, cost of miss and size of file is used in eviction
+     */
+    public LPFCache(boolean costAware) {
+        this.costAware = costAware;
+    }
 
     @Override
     public void read(Inode file) {
         synchronized (file) {
-            try {
-                // Increment the access count
-                file.incrementAndSetAccesscount();
-                // Set the Start window time
-                if (file.getStartWindowTime() == 0) {
-                    file.setStartWindowTime(System.currentTimeMillis());
+            recordAccess(file, null);
+        }
+    }
+
+    /**
+     * It reads the batch of files. Accesses are grouped per file so lock of
+     * each file is taken once for the batch, and files which become eligible
+     * for caching are admitted together by single task instead of one task
+     * per file.
+     * 
+     * @param files
+     * @return hit/miss of each file in the order of batch
+     */
+    @Override
+    public boolean[] readAll(List<Inode> files) {
+        boolean[] results = new boolean[files.size()];
+        Map<Inode, List<Integer>> positionsPerFile = new LinkedHashMap<Inode, List<Integer>>();
+        for (int i = 0; i < files.size(); i++) {
+            List<Integer> positions = positionsPerFile.get(files.get(i));
+            if (positions == null) {
+                positions = new ArrayList<Integer>(1);
+                positionsPerFile.put(files.get(i), positions);
+            }
+            positions.add(i);
+        }
+        List<Runnable> admissions = new ArrayList<Runnable>();
+        for (Map.Entry<Inode, List<Integer>> entry : positionsPerFile.entrySet()) {
+            Inode file = entry.getKey();
+            synchronized (file) {
+                for (int position : entry.getValue()) {
+                    results[position] = recordAccess(file, admissions);
                 }
-                // Set the access time and last access time
-                long currentTime = System.currentTimeMillis();
-                // Check if current time is less than window time span and set
-                // the previous access time
-                file.checkAndSetLastAccessTime(currentTime);
-                file.setAccesstime(currentTime);
-                // Increment the total request count
-                LPF_CACHE_TOTAL_REQUEST.incrementAndGet();
-                // Check if file is already cached or not. If yes then hit else
-                // miss
-                if (file.isCached()) {
-                    // Hit. Log the hit count
-                    LPF_CACHE_HIT.incrementAndGet();
-                } else {
-                    // Miss. Log the miss count
-                    LPF_CACHE_MISS.incrementAndGet();
-                    // Perform caching
-                    performCacheOperation(file);
+            }
+        }
+        if (!admissions.isEmpty()) {
+            cacheUncacheTaskExecutor.submit(new AdmissionBatchTask(admissions));
+        }
+        return results;
+    }
+
+    /**
+     * It records single access to a file and checks whether it is hit or
+     * miss. On miss, file is checked for caching. Caller must hold the lock of
+     * file.
+     * 
+     * @param file
+     * @param admissions
+     *            If not null, admission task is added to it instead of being
+     *            submitted
+     * @return true if file was cached
+     */
+    private boolean recordAccess(Inode file, List<Runnable> admissions) {
+        boolean hit = false;
+        LPFCacheEvents.Read readEvent = null;
+        if (LPFCacheEvents.READ_EVENT_TYPE.isEnabled()) {
+            readEvent = new LPFCacheEvents.Read();
+            readEvent.begin();
+        }
+        try {
+            // Increment the access count
+            file.incrementAndSetAccesscount();
+            // Set the Start window time. File which is not cached starts new
+            // window with default window size of this cache
+            if (file.getStartWindowTime() == 0) {
+                if (!file.isCached()) {
+                    file.setWindowsize(parameters.getDefaultWindowSize());
                 }
-                /*
-                 * System.out.println("Statistics after reading file " +
-                 * file.getInodeId());
-                 * System.out.println("LPF_CACHE_TOTAL_REQUEST -> " +
-                 * LPF_CACHE_TOTAL_REQUEST.get());
-                 * System.out.println("LPF_CACHE_HIT -> " +
-                 * LPF_CACHE_HIT.get()); System.out.println("LPF_CACHE_MISS -> "
-                 * + LPF_CACHE_MISS.get());
-                 */
-            } catch (Exception ex) {
-                System.out.println("read - > There is some problem");
-                ex.printStackTrace();
+                file.setStartWindowTime(System.currentTimeMillis());
             }
+            // Set the access time and last access time
+            long currentTime = System.currentTimeMillis();
+            // Check if current time is less than window time span and set
+            // the previous access time
+            file.checkAndSetLastAccessTime(currentTime);
+            file.setAccesstime(currentTime);
+            // Increment the total request count
+            LPF_CACHE_TOTAL_REQUEST.incrementAndGet();
+            // Check if file is already cached or not. If yes then hit else
+            // miss
+            if (file.isCached()) {
+                // Hit. Log the hit count
+                LPF_CACHE_HIT.incrementAndGet();
+                LPF_CACHE_COST_SAVED.add(file.getMissCost());
+                hit = true;
+            } else {
+                // Miss. Log the miss count
+                LPF_CACHE_MISS.incrementAndGet();
+                LPF_CACHE_MISS_COST.add(file.getMissCost());
+                // Perform caching
+                performCacheOperation(file, admissions);
+            }
+            /*
+             * System.out.println("Statistics after reading file " +
+             * file.getInodeId());
+             * System.out.println("LPF_CACHE_TOTAL_REQUEST -> " +
+             * LPF_CACHE_TOTAL_REQUEST.get());
+             * System.out.println("LPF_CACHE_HIT -> " +
+             * LPF_CACHE_HIT.get()); System.out.println("LPF_CACHE_MISS -> "
+             * + LPF_CACHE_MISS.get());
+             */
+        } catch (Exception ex) {
+            System.out.println("read - > There is some problem");
+            ex.printStackTrace();
+        }
+        if (readEvent != null && readEvent.shouldCommit()) {
+            readEvent.set(file);
+            readEvent.hit = hit;
+            readEvent.commit();
+        }
+        return hit;
+    }
+
+    /**
+     * It reads the range of file block by block. Each block is read like a
+     * file so popularity, admission and eviction is done per block. Bytes of
+     * range are counted as hit or miss as per the block they belong to.
+     * Range should lie within the file, so size of file should be given in
+     * trace.
+     * 
+     * @throws IllegalArgumentException
+     *             If range is not within the file
+     */
+    @Override
+    public void readRange(Inode file, long offset, long length)
+            throws IllegalArgumentException {
+        long size = file.getSize();
+        if (offset < 0 || length <= 0 || offset >= size || length > size - offset) {
+            throw new IllegalArgumentException("Range [" + offset + "," + length + "] is not within file " + file.getPath() + " of size " + size);
+        }
+        long endOffset = offset + length;
+        long firstBlock = offset / LPFConstant.BLOCK_SIZE;
+        long lastBlock = (endOffset - 1) / LPFConstant.BLOCK_SIZE;
+        for (long blockIndex = firstBlock; blockIndex <= lastBlock; blockIndex++) {
+            Block block = file.getOrCreateBlock(blockIndex);
+            long bytes = Math.min(endOffset, block.getOffset() + LPFConstant.BLOCK_SIZE) - Math.max(offset, block.getOffset());
+            if (block.isCached()) {
+                LPF_CACHE_BYTE_HIT.addAndGet(bytes);
+            } else {
+                LPF_CACHE_BYTE_MISS.addAndGet(bytes);
+            }
+            read(block);
         }
     }
 
@@ -114,26 +310,30 @@ public class LPFCache implements Cache {
      * then spawns thread to remove least popular file and add current file else
      * perform normal thread to cache the current file. So if you find that this
      * algorithm is busy in "Thrashing" then it might be because of window size
-     * or cache size is not properly configured.
+     * or cache size is not properly configured. File which is in ghost list
+     * is admitted again without checking access count threshold if it was
+     * popular enough when it was removed.
      * 
      * @param file
+     * @param admissions
+     *            If not null, admission task is added to it instead of being
+     *            submitted
      * @throws Exception
      */
-    private void performCacheOperation(Inode file)
+    private void performCacheOperation(Inode file, List<Runnable> admissions)
             throws Exception {
-        if (file.getAccesscount() > LPFConstant.LPF_ACCESS_COUNT_THRESHOLD) {
-            // Check if cache is full or not. As in the trace file, size is not
-            // mention. So here we are using total cache entry. If we know the
-            // size of each file then we can compare the required size with
-            // current cache size.
-            if (numberOfCachedFile.longValue() < LPFConstant.TOTAL_CACHE_ENTRY) {
-                cacheUncacheTaskExecutor.submit(new AddToCache(file));
-            } else {
-                cacheUncacheTaskExecutor.submit(new MakeRoomNAddToCache(file));
-                numberOfCachedFile.decrementAndGet();
-            }
-            file.setCached(true);
-            numberOfCachedFile.incrementAndGet();
+        GhostList.Ghost ghost = ghostList.remove(file);
+        if (ghost != null) {
+            LPF_CACHE_GHOST_HIT.incrementAndGet();
+        }
+        if (ghost != null && isWorthReadmission(file, ghost)) {
+            // File was removed recently. Give back the window it had so that
+            // it does not have to earn its popularity again from zero
+            LPF_CACHE_GHOST_READMISSION.incrementAndGet();
+            file.setWindowsize(Math.max(file.getWindowsize(), ghost.getWindowSize()));
+            submitAdmission(file, admissions);
+        } else if (file.getAccesscount() > parameters.getAccessCountThreshold()) {
+            submitAdmission(file, admissions);
         } else {
             // Set the Start window to 0. So this will make sure the start
             // window is started only when file is eligible for caching
@@ -141,6 +341,92 @@ public class LPFCache implements Cache {
         }
     }
 
+    /**
+     * It checks whether removed file should be admitted again right away. File
+     * is admitted if there is free room or if it was at least as popular as
+     * the least popular file in cache when it was removed. Both are compared
+     * by eviction key so cost aware cache compares their priorities.
+     * 
+     * @param file
+     * @param ghost
+     * @return true if file should be admitted
+     */
+    private boolean isWorthReadmission(Inode file, GhostList.Ghost ghost) {
+        if (numberOfCachedFile.get() < LPFConstant.TOTAL_CACHE_ENTRY) {
+            return true;
+        }
+        Inode leastPopularFile = LPFCACHE.peek();
+        return leastPopularFile == null || ghostEvictionKey(file, ghost) >= evictionKey(leastPopularFile);
+    }
+
+    /**
+     * It returns the eviction key file would get if it is admitted with the
+     * popularity it had at removal.
+     * 
+     * @param file
+     * @param ghost
+     * @return eviction key
+     */
+    private double ghostEvictionKey(Inode file, GhostList.Ghost ghost) {
+        return costAware ? costInflation + ((ghost.getPopularity() * file.getMissCost()) / file.getSize()) : ghost.getPopularity();
+    }
+
+    /**
+     * It prepares the task which adds file to cache. If cache is full then
+     * task first removes least popular file. File is marked as cached right
+     * away so further reads are counted as hit. Caller must hold the lock of
+     * file.
+     * 
+     * @param file
+     * @param admissions
+     *            If not null, admission task is added to it instead of being
+     *            submitted
+     */
+    private void submitAdmission(Inode file, List<Runnable> admissions) {
+        // Check if cache is full or not. As in the trace file, size is not
+        // mention. So here we are using total cache entry. If we know the
+        // size of each file then we can compare the required size with
+        // current cache size.
+        Runnable admission = null;
+        if (reclaimer != null || numberOfCachedFile.longValue() < LPFConstant.TOTAL_CACHE_ENTRY) {
+            // Reclaimer makes room in background so admission never evicts
+            admission = new AddToCache(file);
+        } else {
+            admission = new MakeRoomNAddToCache(file);
+            numberOfCachedFile.decrementAndGet();
+        }
+        pendingAdmission.incrementAndGet();
+        if (admissions == null) {
+            cacheUncacheTaskExecutor.submit(admission);
+        } else {
+            admissions.add(admission);
+        }
+        file.setCached(true);
+        numberOfCachedFile.incrementAndGet();
+    }
+
+    /**
+     * It speculatively adds file to cache without checking access count
+     * threshold. Window of file starts now. It is used to prefetch the file
+     * which is expected to be read soon.
+     * 
+     * @param file
+     * @return true if file is admitted, false if it is already cached
+     */
+    public boolean prefetch(Inode file) {
+        synchronized (file) {
+            if (file.isCached()) {
+                return false;
+            }
+            long currentTime = System.currentTimeMillis();
+            file.setWindowsize(parameters.getDefaultWindowSize());
+            file.setStartWindowTime(currentTime);
+            file.setLastAccessTime(currentTime);
+            submitAdmission(file, null);
+            return true;
+        }
+    }
+
     /**
      * It calculates popularity of file based on its access count/age and other
      * file characteristics. The popularity value is compared with 50% of Least
@@ -168,6 +454,8 @@ public class LPFCache implements Cache {
                 newPopularity = ((float) fileAccessRate) / ((float) fileAge);
                 // Compare the calculated popularity value with Least Popular
                 // and Most Popular value from the LPF cache
+                LPFCacheEvents.MedianThreshold medianEvent = new LPFCacheEvents.MedianThreshold();
+                medianEvent.begin();
                 long size = (numberOfCachedFile.get() - 1);
                 index = size / 2;
                 float firstOperand = getMedianPopularityValue(index);
@@ -179,6 +467,12 @@ public class LPFCache implements Cache {
                         thresholdPopularity = firstOperand;
                     }
                 }
+                if (medianEvent.shouldCommit()) {
+                    medianEvent.set(file);
+                    medianEvent.cachedFileCount = size + 1;
+                    medianEvent.thresholdPopularity = thresholdPopularity;
+                    medianEvent.commit();
+                }
                 // Double the window size if new popularity is greater than old
                 // popularity else half the window size. Increase the window
                 // size upto certain limit.
@@ -188,8 +482,8 @@ public class LPFCache implements Cache {
                     newWindowSize = file.getWindowsize() / 2;
                 }
                 // Compare with threshold value
-                if (newWindowSize > LPFConstant.WINDOW_SIZE_THRESHOLD) {
-                    newWindowSize = LPFConstant.WINDOW_SIZE_THRESHOLD;
+                if (newWindowSize > parameters.getWindowSizeThreshold()) {
+                    newWindowSize = parameters.getWindowSizeThreshold();
                 }
             }
             // Set the new popularity and window size
@@ -233,11 +527,14 @@ public class LPFCache implements Cache {
     private void addToLPFCache(Inode file) throws Exception {
         synchronized (file) {
             // Check if file is in cache
-            if (!LPFCACHE.containsKey(file)) {
+            if (!LPFCACHE.contains(file)) {
                 // Insert into Sorted set the priority value
                 popularityOrderedValueSet.add(file.getPopularity());
-                LPFCACHE.put(file, file.getInodeId());
+                updateCostPriority(file);
+                LPFCACHE.add(file, evictionKey(file));
+                cachedBytes.addAndGet(file.getSize());
                 file.setCached(true);
+                loadContent(file);
                 // spawn new thread to check for window expiration
                 cacheUncacheTaskExecutor.schedule(new CacheUncacheTask(file), file.getWindowsize(), TimeUnit.MILLISECONDS);
             }
@@ -245,18 +542,381 @@ public class LPFCache implements Cache {
         }
     }
 
-    public static AtomicLong getLPF_CACHE_HIT() {
+    /**
+     * It returns the copy of files which are currently present in LPF cache in
+     * ascending order of popularity. It is used to take snapshot of cache.
+     * 
+     * @return List of cached file
+     */
+    public List<Inode> getCachedFiles() {
+        return LPFCACHE.sortedFiles();
+    }
+
+    /**
+     * It removes the file from this cache without calculating its popularity.
+     * It is used when file is no longer served by this cache, for e.g. when
+     * file is moved to other node of cluster.
+     * 
+     * @param file
+     * @return true if file was present in cache
+     */
+    public boolean invalidate(Inode file) {
+        synchronized (file) {
+            if (!LPFCACHE.remove(file)) {
+                return false;
+            }
+            cachedBytes.addAndGet(-file.getSize());
+            numberOfCachedFile.decrementAndGet();
+            file.setCached(false);
+            notifyEviction(file);
+            return true;
+        }
+    }
+
+    /**
+     * It waits till all submitted admission tasks are finished, so every file
+     * marked cached is present in eviction heap. Caller must not hold the
+     * lock of any file since admission takes it.
+     * 
+     * @throws InterruptedException
+     */
+    public void awaitPendingAdmissions()
+            throws InterruptedException {
+        synchronized (pendingAdmission) {
+            while (pendingAdmission.get() > 0) {
+                pendingAdmission.wait();
+            }
+        }
+    }
+
+    private void admissionFinished() {
+        if (pendingAdmission.decrementAndGet() == 0) {
+            synchronized (pendingAdmission) {
+                pendingAdmission.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * It stops the background tasks of this cache. Pending window expiration
+     * tasks are dropped.
+     */
+    public void shutdown() {
+        cacheUncacheTaskExecutor.shutdownNow();
+        if (reclaimer != null) {
+            reclaimer.reclaimExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * It starts the background reclaimer. From then on admission only adds
+     * the file and whenever occupancy of cache crosses high watermark,
+     * reclaimer removes least popular files until occupancy is at low
+     * watermark. Occupancy is total size of cached files if
+     * CACHE_CAPACITY_BYTES is set, else number of cached files.
+     */
+    public synchronized void startReclaimer() {
+        if (reclaimer == null) {
+            reclaimer = new Reclaimer();
+        }
+    }
+
+    /**
+     * It checks whether occupancy of cache is above given fraction of its
+     * capacity.
+     * 
+     * @param watermark
+     * @return true if above watermark
+     */
+    private boolean isAboveWatermark(double watermark) {
+        if (LPFConstant.CACHE_CAPACITY_BYTES > 0) {
+            return cachedBytes.get() > watermark * LPFConstant.CACHE_CAPACITY_BYTES;
+        }
+        return LPFCACHE.size() > watermark * LPFConstant.TOTAL_CACHE_ENTRY;
+    }
+
+    /**
+     * It admits ranked files at startup in single pass on calling thread
+     * without admission tasks. Files are admitted in rank order till cache is
+     * full. Popularity of file is estimated from its expected reads as if it
+     * is read at that rate throughout its first window. Window expiration of
+     * each file is scheduled as usual.
+     * 
+     * @param rankedFiles
+     *            Files in descending order of expected reads
+     * @param readsPerHour
+     *            Expected reads per hour of each file
+     * @return number of files admitted
+     */
+    public int bulkLoad(List<Inode> rankedFiles, double[] readsPerHour) {
+        if (readsPerHour.length != rankedFiles.size()) {
+            throw new IllegalArgumentException("Expected reads are given for " + readsPerHour.length + " files but " + rankedFiles.size() + " files are ranked");
+        }
+        long currentTime = System.currentTimeMillis();
+        int loaded = 0;
+        for (int i = 0; i < rankedFiles.size() && numberOfCachedFile.get() < LPFConstant.TOTAL_CACHE_ENTRY; i++) {
+            Inode file = rankedFiles.get(i);
+            synchronized (file) {
+                if (file.isCached() || file.getWindowsize() <= 0) {
+                    continue;
+                }
+                // Expected reads in window / window size / age of file where
+                // age is the whole window
+                double readsPerMillis = readsPerHour[i] / (60.0 * 60.0 * 1000.0);
+                file.setPopularity((float) (readsPerMillis / file.getWindowsize()));
+                file.setStartWindowTime(currentTime);
+                file.setLastAccessTime(currentTime);
+                restoreCachedFile(file, file.getWindowsize());
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * It is used to put file back into LPF cache without going through
+     * admission. It is used while restoring cache from snapshot. Window
+     * expiration task is scheduled after remaining window time so file is
+     * re-evaluated as if cache never stopped.
+     * 
+     * @param file
+     * @param remainingWindowTime
+     */
+    void restoreCachedFile(Inode file, long remainingWindowTime) {
+        synchronized (file) {
+            if (!LPFCACHE.contains(file)) {
+                popularityOrderedValueSet.add(file.getPopularity());
+                updateCostPriority(file);
+                LPFCACHE.add(file, evictionKey(file));
+                cachedBytes.addAndGet(file.getSize());
+                file.setCached(true);
+                loadContent(file);
+                numberOfCachedFile.incrementAndGet();
+                cacheUncacheTaskExecutor.schedule(new CacheUncacheTask(file), Math.max(0L, remainingWindowTime), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * It sets GreedyDual priority of file from its current popularity. Heap
+     * keeps its own copy of key, so new priority takes effect only when file
+     * is added or updated in heap.
+     * 
+     * @param file
+     */
+    private void updateCostPriority(Inode file) {
+        if (costAware) {
+            file.setCostPriority(costInflation + ((file.getPopularity() * file.getMissCost()) / file.getSize()));
+        }
+    }
+
+    /**
+     * It returns the key on which file is ordered in eviction heap.
+     * 
+     * @param file
+     * @return popularity or GreedyDual priority in cost aware mode
+     */
+    private double evictionKey(Inode file) {
+        return costAware ? file.getCostPriority() : file.getPopularity();
+    }
+
+    /**
+     * It removes the least popular file from cache and forgets its popularity
+     * so that file has to earn its place again. Lock of file is taken before
+     * removal and held till its state is reset, so file is not removed while
+     * its window expiration is processed and no read sees removed file as
+     * cached. If file changes meanwhile, next least popular file is tried.
+     * 
+     * @return false if cache is empty
+     */
+    private boolean evictLeastPopularFile() {
+        LPFCacheEvents.Eviction evictionEvent = new LPFCacheEvents.Eviction();
+        evictionEvent.begin();
+        Inode leastPopularFile;
+        while ((leastPopularFile = LPFCACHE.peek()) != null) {
+            synchronized (leastPopularFile) {
+                if (!LPFCACHE.remove(leastPopularFile)) {
+                    continue;
+                }
+                cachedBytes.addAndGet(-leastPopularFile.getSize());
+                if (evictionEvent.isEnabled()) {
+                    // Record the file before its fields are reset
+                    evictionEvent.set(leastPopularFile);
+                }
+                // Reset Access count and Window size, clear cache flag for
+                // file which is removed from cache
+                ghostList.add(leastPopularFile, leastPopularFile.getPopularity(), leastPopularFile.getWindowsize());
+                leastPopularFile.setCached(false);
+                leastPopularFile.setWindowsize(parameters.getDefaultWindowSize());
+                leastPopularFile.resetFileAccesscount();
+                leastPopularFile.resetStartWindowTime();
+                if (costAware) {
+                    // Raise inflation to priority of removed file
+                    costInflation = Math.max(costInflation, leastPopularFile.getCostPriority());
+                }
+                // Decrement the number of cache file
+                numberOfCachedFile.decrementAndGet();
+                // Listeners are notified before file can be admitted again,
+                // otherwise they could drop state of readmitted file
+                notifyEviction(leastPopularFile);
+            }
+            if (evictionEvent.shouldCommit()) {
+                evictionEvent.commit();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * It loads the content of file into content store if cache holds file
+     * content. Failure to load content does not affect caching decision.
+     * 
+     * @param file
+     */
+    private void loadContent(Inode file) {
+        SlabContentStore store = contentStore;
+        if (store != null) {
+            try {
+                store.load(file);
+            } catch (Exception ex) {
+                System.out.println("Problem in loading content of file " + file.getInodeId() + " " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * It returns read-only view of content of cached file. Content is shared
+     * with cache so it is not copied. Caller must close the content, views
+     * stay valid till then even if file is removed from cache.
+     * 
+     * @param file
+     * @return Content or null if content is not cached
+     */
+    public SlabContentStore.Content getContent(Inode file) {
+        SlabContentStore store = contentStore;
+        return (store != null && file.isCached()) ? store.getContent(file) : null;
+    }
+
+    /**
+     * It makes cache hold the content of cached files in given store. Content
+     * is freed whenever file is removed from cache.
+     * 
+     * @param store
+     */
+    public void setContentStore(SlabContentStore store) {
+        this.contentStore = store;
+        addEvictionListener(store);
+    }
+
+    public void addEvictionListener(CacheEvictionListener listener) {
+        evictionListeners.add(listener);
+    }
+
+    private void notifyEviction(Inode file) {
+        for (CacheEvictionListener listener : evictionListeners) {
+            listener.onEviction(file);
+        }
+    }
+
+    public AtomicLong getLPF_CACHE_HIT() {
         return LPF_CACHE_HIT;
     }
 
-    public static AtomicLong getLPF_CACHE_MISS() {
+    public AtomicLong getLPF_CACHE_MISS() {
         return LPF_CACHE_MISS;
     }
 
-    public static AtomicLong getLPF_CACHE_TOTAL_REQUEST() {
+    public AtomicLong getLPF_CACHE_TOTAL_REQUEST() {
         return LPF_CACHE_TOTAL_REQUEST;
     }
 
+    public AtomicLong getLPF_CACHE_BYTE_HIT() {
+        return LPF_CACHE_BYTE_HIT;
+    }
+
+    public AtomicLong getLPF_CACHE_BYTE_MISS() {
+        return LPF_CACHE_BYTE_MISS;
+    }
+
+    public double getLPF_CACHE_MISS_COST() {
+        return LPF_CACHE_MISS_COST.sum();
+    }
+
+    public double getLPF_CACHE_COST_SAVED() {
+        return LPF_CACHE_COST_SAVED.sum();
+    }
+
+    /**
+     * It sets the cost statistics. It is used while resuming replay from
+     * checkpoint.
+     *
+     * @param missCost
+     * @param costSaved
+     */
+    void restoreCostStatistics(double missCost, double costSaved) {
+        LPF_CACHE_MISS_COST.reset();
+        LPF_CACHE_MISS_COST.add(missCost);
+        LPF_CACHE_COST_SAVED.reset();
+        LPF_CACHE_COST_SAVED.add(costSaved);
+    }
+
+    public boolean isCostAware() {
+        return costAware;
+    }
+
+    /**
+     * It returns the cost statistics in the form
+     * [Request,Hit,Miss,MissCost,CostSaved,CostSavedRatio]. Running plain and
+     * cost aware LPF on same trace gives the cost saved by cost aware
+     * eviction.
+     */
+    public String getCostStatistics() {
+        double missCost = getLPF_CACHE_MISS_COST();
+        double costSaved = getLPF_CACHE_COST_SAVED();
+        return "[" + LPF_CACHE_TOTAL_REQUEST.get() + "," + LPF_CACHE_HIT.get() + "," + LPF_CACHE_MISS.get() + "," + missCost + "," + costSaved + "," + (costSaved / Math.max(Double.MIN_VALUE, missCost + costSaved)) + "]";
+    }
+
+    /**
+     * It returns the ghost list statistics in the form
+     * [GhostHit,GhostReadmission,GhostHitRatio] where ratio is ghost hits per
+     * miss.
+     */
+    public String getGhostStatistics() {
+        long ghostHit = LPF_CACHE_GHOST_HIT.get();
+        return "[" + ghostHit + "," + LPF_CACHE_GHOST_READMISSION.get() + "," + (((float) ghostHit) / Math.max(1L, LPF_CACHE_MISS.get())) + "]";
+    }
+
+    public LPFParameters getParameters() {
+        return parameters;
+    }
+
+    public AtomicLong getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * It returns number of reclaim passes or 0 if reclaimer is not started.
+     */
+    public long getReclaimCount() {
+        return (reclaimer == null) ? 0L : reclaimer.reclaimCount.get();
+    }
+
+    /**
+     * It returns number of files removed by reclaimer.
+     */
+    public long getReclaimedFile() {
+        return (reclaimer == null) ? 0L : reclaimer.reclaimedFile.get();
+    }
+
+    public AtomicLong getLPF_CACHE_GHOST_HIT() {
+        return LPF_CACHE_GHOST_HIT;
+    }
+
+    public AtomicLong getLPF_CACHE_GHOST_READMISSION() {
+        return LPF_CACHE_GHOST_READMISSION;
+    }
+
     /**
      * This class is used to add file to cache. Seperate thread is used to run
      * this task.
@@ -274,14 +934,25 @@ public class LPFCache implements Cache {
 
         @Override
         public void run() {
+            LPFCacheEvents.Admission admissionEvent = new LPFCacheEvents.Admission();
+            admissionEvent.begin();
             try {
                 // Calculate Popularity
                 calculatePopularity(file);
                 // Add to LPF Cache
                 addToLPFCache(file);
+                if (reclaimer != null) {
+                    reclaimer.reclaimIfRequired();
+                }
+                if (admissionEvent.shouldCommit()) {
+                    admissionEvent.set(file);
+                    admissionEvent.commit();
+                }
             } catch (Exception ex) {
                 System.out.println("AddToCache -> Error processing file " + file.getInodeId());
                 ex.printStackTrace();
+            } finally {
+                admissionFinished();
             }
         }
     }
@@ -303,22 +974,15 @@ public class LPFCache implements Cache {
 
         @Override
         public void run() {
+            LPFCacheEvents.Admission admissionEvent = new LPFCacheEvents.Admission();
+            admissionEvent.begin();
             try {
                 // Check if cache is full or not. If not calculate popularity
                 // and insert into cache else remove least popular file and then
                 // add it to cache
                 if (numberOfCachedFile.get() > LPFConstant.TOTAL_CACHE_ENTRY) {
-                    // Reset Access count and Window size, clear cache flag for
-                    // file which is removed from cache
-                    Inode leastPopularFile = LPFCACHE.firstEntry().getKey();
-                    leastPopularFile.setCached(false);
-                    leastPopularFile.setWindowsize(LPFConstant.DEFAULT_WINDOW_SIZE);
-                    leastPopularFile.resetFileAccesscount();
-                    leastPopularFile.resetStartWindowTime();
-                    // Remove the first entry from Map
-                    LPFCACHE.pollFirstEntry();
-                    // Decrement the number of cache file
-                    numberOfCachedFile.decrementAndGet();
+                    evictLeastPopularFile();
+                    admissionEvent.makeRoom = true;
                 }
                 // Calculate Popularity for new file
                 calculatePopularity(file);
@@ -326,13 +990,102 @@ public class LPFCache implements Cache {
                 addToLPFCache(file);
                 // Increment number of cache file
                 numberOfCachedFile.incrementAndGet();
+                if (admissionEvent.shouldCommit()) {
+                    admissionEvent.set(file);
+                    admissionEvent.commit();
+                }
             } catch (Exception ex) {
                 System.out.println("MakeRoomNAddToCache -> Error processing file " + file.getInodeId());
                 ex.printStackTrace();
+            } finally {
+                admissionFinished();
             }
         }
     }
 
+    /**
+     * This class is used to admit the files which become eligible for caching
+     * in one batch. Admissions are run one after other on single thread.
+     * 
+     * @author jsrudani
+     * 
+     */
+    class AdmissionBatchTask implements Runnable {
+
+        private final List<Runnable> admissions;
+
+        AdmissionBatchTask(List<Runnable> admissions) {
+            this.admissions = admissions;
+        }
+
+        @Override
+        public void run() {
+            for (Runnable admission : admissions) {
+                // Each admission handles its own error
+                admission.run();
+            }
+        }
+    }
+
+    /**
+     * This class removes least popular files in background. Reclaim is
+     * started when occupancy crosses high watermark and removes files in one
+     * pass till occupancy is at low watermark. Only one reclaim runs at a
+     * time, request which comes while reclaim is running is covered by it.
+     * 
+     * @author jsrudani
+     * 
+     */
+    class Reclaimer implements Runnable {
+
+        private final ScheduledExecutorService reclaimExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "lpf-reclaimer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        /**
+         * It represents whether reclaim is submitted and not yet finished.
+         */
+        private final AtomicBoolean reclaimPending = new AtomicBoolean(false);
+        /**
+         * This represents number of reclaim passes.
+         */
+        private final AtomicLong reclaimCount = new AtomicLong(0);
+        /**
+         * This represents number of files removed by reclaimer.
+         */
+        private final AtomicLong reclaimedFile = new AtomicLong(0);
+
+        /**
+         * It submits reclaim if occupancy is above high watermark. It does
+         * not wait for reclaim.
+         */
+        void reclaimIfRequired() {
+            if (isAboveWatermark(LPFConstant.RECLAIM_HIGH_WATERMARK) && reclaimPending.compareAndSet(false, true)) {
+                reclaimExecutor.submit(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                reclaimCount.incrementAndGet();
+                while (isAboveWatermark(LPFConstant.RECLAIM_LOW_WATERMARK) && evictLeastPopularFile()) {
+                    reclaimedFile.incrementAndGet();
+                }
+            } catch (Exception ex) {
+                System.out.println("Reclaimer -> Error removing file " + ex.getMessage());
+            } finally {
+                reclaimPending.set(false);
+            }
+            // Files admitted after last check may have crossed the watermark
+            reclaimIfRequired();
+        }
+    }
+
     /**
      * This class performs caching and un-caching task. Seperate thread is
      * running to check if file needs to be in cache. It is activated at window
@@ -350,36 +1103,68 @@ public class LPFCache implements Cache {
 
         @Override
         public void run() {
+            LPFCacheEvents.WindowExpiry expiryEvent = new LPFCacheEvents.WindowExpiry();
+            expiryEvent.begin();
             try {
-                if (LPFCACHE.containsKey(file)) {
-                    // Remove the file from LPF cache
-                    if (LPFCACHE.remove(file) != null) {
-                        // Decrement count of number of cached file
-                        numberOfCachedFile.decrementAndGet();
-                        // Get the previous window size
-                        long oldWindowSize = file.getWindowsize();
-                        // Calculate Popularity for new file
+                // Lock of file keeps it from being removed to make room while
+                // its popularity is calculated again
+                synchronized (file) {
+                    if (!LPFCACHE.contains(file)) {
+                        return;
+                    }
+                    // Decrement count of number of cached file
+                    numberOfCachedFile.decrementAndGet();
+                    // Get the previous window size
+                    long oldWindowSize = file.getWindowsize();
+                    // Calculate Popularity for file. If it fails, file stays
+                    // in cache and is removed only to make room
+                    try {
                         calculatePopularity(file);
-                        // Check if file is popular or not
-                        if (file.getWindowsize() > 0) {
-                            // Reset the file fields
-                            file.resetFileAccesscount();
-                            // Update the start window time for a file
-                            file.setStartWindowTime((file.getStartWindowTime() + oldWindowSize));
-                            // Increment count of number of cached file
-                            numberOfCachedFile.incrementAndGet();
-                            // Add new file to LPF Cache
-                            addToLPFCache(file);
-                        } else {
-                            // Reset the Start Window for a file
-                            file.resetStartWindowTime();
-                            // Since new window size is less than expected so
-                            // file is removed from the cache
-                            file.setCached(false);
-                            System.out.println("Not popular at window expiration file -> " + file.getInodeId());
-                            System.out.println("Updated Cache " + LPFCACHE);
+                    } catch (Exception ex) {
+                        numberOfCachedFile.incrementAndGet();
+                        throw ex;
+                    }
+                    // Check if file is popular or not
+                    if (file.getWindowsize() > 0) {
+                        // Reset the file fields
+                        file.resetFileAccesscount();
+                        // Update the start window time for a file
+                        file.setStartWindowTime((file.getStartWindowTime() + oldWindowSize));
+                        // Increment count of number of cached file
+                        numberOfCachedFile.incrementAndGet();
+                        // Move the file to its new position in cache
+                        popularityOrderedValueSet.add(file.getPopularity());
+                        updateCostPriority(file);
+                        LPFCACHE.update(file, evictionKey(file));
+                        cacheUncacheTaskExecutor.schedule(new CacheUncacheTask(file), file.getWindowsize(), TimeUnit.MILLISECONDS);
+                        expiryEvent.readmitted = true;
+                    } else {
+                        // Since new window size is less than expected so
+                        // file is removed from the cache
+                        LPFCACHE.remove(file);
+                        cachedBytes.addAndGet(-file.getSize());
+                        // Reset the Start Window for a file. Window size is
+                        // reset as well, otherwise file admitted again would
+                        // expire right away with window size 0
+                        file.resetStartWindowTime();
+                        file.setWindowsize(parameters.getDefaultWindowSize());
+                        file.setCached(false);
+                        ghostList.add(file, file.getPopularity(), oldWindowSize);
+                        notifyEviction(file);
+                        System.out.println("Not popular at window expiration file -> " + file.getInodeId());
+                        System.out.println("Updated Cache " + LPFCACHE);
+                        LPFCacheEvents.Eviction evictionEvent = new LPFCacheEvents.Eviction();
+                        if (evictionEvent.shouldCommit()) {
+                            evictionEvent.set(file);
+                            evictionEvent.windowExpired = true;
+                            evictionEvent.commit();
                         }
                     }
+                    if (expiryEvent.shouldCommit()) {
+                        expiryEvent.set(file);
+                        expiryEvent.previousWindowSize = oldWindowSize;
+                        expiryEvent.commit();
+                    }
                 }
             } catch (Exception ex) {
                 System.out.println("CacheUncacheTask -> Error processing file " + file.getInodeId());
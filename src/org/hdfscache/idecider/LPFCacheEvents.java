@@ -0,0 +1,110 @@
+package org.hdfscache.idecider;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * This class holds the Java Flight Recorder events of LPF cache. Event is
+ * created and began before the operation and committed after it only if
+ * shouldCommit() is true, so fields are not even filled when event is
+ * disabled in recording. Duration of every event is time taken by the
+ * operation. Events have no stack trace. Read event is emitted for every read
+ * so it is disabled unless enabled in recording settings, and it is not even
+ * created while it is disabled.
+ *
+ * @author jsrudani
+ *
+ */
+public class LPFCacheEvents {
+
+    /**
+     * It is used to check whether read event is enabled before creating it.
+     */
+    static final EventType READ_EVENT_TYPE = EventType.getEventType(Read.class);
+
+    private LPFCacheEvents() {
+    }
+
+    /**
+     * This class holds the fields common to all events of a file.
+     *
+     * @author jsrudani
+     *
+     */
+    @Category({ "HDFS Cache", "LPF" })
+    @StackTrace(false)
+    abstract static class FileEvent extends Event {
+        @Label("Inode Id")
+        long inodeId;
+
+        @Label("Popularity")
+        float popularity;
+
+        @Label("Window Size")
+        @Timespan(Timespan.MILLISECONDS)
+        long windowSize;
+
+        void set(Inode file) {
+            inodeId = file.getInodeId();
+            popularity = file.getPopularity();
+            windowSize = file.getWindowsize();
+        }
+    }
+
+    @Name("org.hdfscache.idecider.Read")
+    @Enabled(false)
+    @Label("LPF Read")
+    @Description("File is read through LPF cache")
+    static class Read extends FileEvent {
+        @Label("Hit")
+        boolean hit;
+    }
+
+    @Name("org.hdfscache.idecider.Admission")
+    @Label("LPF Admission")
+    @Description("File is added to LPF cache")
+    static class Admission extends FileEvent {
+        @Label("Make Room")
+        @Description("Least popular file is removed to make room")
+        boolean makeRoom;
+    }
+
+    @Name("org.hdfscache.idecider.Eviction")
+    @Label("LPF Eviction")
+    @Description("File is removed from LPF cache")
+    static class Eviction extends FileEvent {
+        @Label("Window Expired")
+        @Description("File is removed because it is not popular at window expiration, otherwise it is removed to make room")
+        boolean windowExpired;
+    }
+
+    @Name("org.hdfscache.idecider.WindowExpiry")
+    @Label("LPF Window Expiry")
+    @Description("Popularity of cached file is calculated again at window expiration")
+    static class WindowExpiry extends FileEvent {
+        @Label("Previous Window Size")
+        @Timespan(Timespan.MILLISECONDS)
+        long previousWindowSize;
+
+        @Label("Readmitted")
+        boolean readmitted;
+    }
+
+    @Name("org.hdfscache.idecider.MedianThreshold")
+    @Label("LPF Median Threshold")
+    @Description("Median popularity of cached files is calculated to decide window size of file")
+    static class MedianThreshold extends FileEvent {
+        @Label("Cached Files")
+        long cachedFileCount;
+
+        @Label("Threshold Popularity")
+        float thresholdPopularity;
+    }
+}
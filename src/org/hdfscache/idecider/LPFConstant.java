@@ -23,6 +23,14 @@ public class LPFConstant {
      * It represents File create operation
      */
     public static final String FILE_CREATE = "create";
+    /**
+     * It represents cache node joining the cluster
+     */
+    public static final String NODE_JOIN = "join";
+    /**
+     * It represents cache node leaving the cluster
+     */
+    public static final String NODE_LEAVE = "leave";
     /**
      * It represents Default Window size for File
      */
@@ -39,11 +47,41 @@ public class LPFConstant {
      * It represents Least Popular File Cache
      */
     public static final String LPF_CACHE_TYPE = "LPF";
+    /**
+     * It represents Least Popular File Cache where popularity is exponentially
+     * decayed access score
+     */
+    public static final String LPF_DECAY_CACHE_TYPE = "LPF-DECAY";
+    /**
+     * It represents cluster of LPF cache nodes where files are placed by
+     * consistent hashing
+     */
+    public static final String LPF_CLUSTER_CACHE_TYPE = "LPF-CLUSTER";
+    /**
+     * It represents Least Popular File Cache which also holds content of
+     * cached files
+     */
+    public static final String LPF_DATA_CACHE_TYPE = "LPF-DATA";
+    /**
+     * It represents two tier cache where LPF cache is memory tier and files
+     * removed from it are kept in disk tier
+     */
+    public static final String LPF_TIERED_CACHE_TYPE = "LPF-TIERED";
+    /**
+     * It represents Least Popular File Cache whose parameters are tuned while
+     * running
+     */
+    public static final String LPF_TUNED_CACHE_TYPE = "LPF-TUNED";
     /**
      * It represents Total number of files can be cache. So total 3 files can be
      * cached.
      */
     public static final long TOTAL_CACHE_ENTRY = 4L;
+    /**
+     * It represents Total number of files can be kept in disk tier of two tier
+     * cache.
+     */
+    public static final long DISK_TIER_TOTAL_CACHE_ENTRY = 8L;
     /**
      * It represents the caching eligiblity for file. If file access count is
      * greater than threshold then it is eligible for caching.
@@ -80,5 +118,316 @@ public class LPFConstant {
      * It represents Default Last Access Time of a File
      */
     public static final long DEFAULT_LAST_ACCESS_TIME = 0L;
+    /**
+     * It represents simulator option which holds the snapshot file. If
+     * snapshot file exists then cache is restored from it at startup.
+     */
+    public static final String SNAPSHOT_OPTION = "snapshot";
+    /**
+     * It represents the time interval (in milliseconds) at which cache
+     * snapshot is written periodically.
+     */
+    public static final long SNAPSHOT_INTERVAL = 60000L;
+    /**
+     * It represents simulator option which holds the replay checkpoint file.
+     * If checkpoint file exists then replay is resumed from it.
+     */
+    public static final String CHECKPOINT_OPTION = "checkpoint";
+    /**
+     * It represents the number of batches replayed between two checkpoints.
+     */
+    public static final int CHECKPOINT_INTERVAL_BATCH = 100;
+    /**
+     * It represents the half life (in milliseconds) of decayed access score.
+     * Score of a file which is not accessed for half life time is reduced to
+     * half.
+     */
+    public static final long DECAY_HALF_LIFE = 20L;
+    /**
+     * It represents the time interval (in milliseconds) after which global
+     * epoch of decayed score is moved forward.
+     */
+    public static final long DECAY_REBASE_INTERVAL = 60000L;
+    /**
+     * It represents lower bound of access count threshold used by auto tuning.
+     */
+    public static final long MIN_ACCESS_COUNT_THRESHOLD = 0L;
+    /**
+     * It represents upper bound of access count threshold used by auto tuning.
+     */
+    public static final long MAX_ACCESS_COUNT_THRESHOLD = 16L;
+    /**
+     * It represents lower bound of default window size and window size
+     * threshold used by auto tuning.
+     */
+    public static final long MIN_WINDOW_SIZE = 2L;
+    /**
+     * It represents upper bound of window size threshold used by auto tuning.
+     */
+    public static final long MAX_WINDOW_SIZE_THRESHOLD = 1000L;
+    /**
+     * It represents the time interval (in milliseconds) over which hit ratio
+     * is sampled before auto tuning takes next step.
+     */
+    public static final long TUNING_INTERVAL = 200L;
+    /**
+     * It represents minimum number of requests in an interval for hit ratio
+     * to be considered by auto tuning. Interval with less requests is skipped.
+     */
+    public static final long TUNING_MIN_REQUEST = 10L;
+    /**
+     * It represents the step by which access count threshold is changed.
+     */
+    public static final long TUNING_ACCESS_COUNT_STEP = 1L;
+    /**
+     * It represents the step by which window sizes are changed.
+     */
+    public static final long TUNING_WINDOW_SIZE_STEP = 5L;
+    /**
+     * It represents the number of tuning steps kept in tuning history.
+     */
+    public static final int TUNING_HISTORY_SIZE = 1000;
+    /**
+     * It represents simulator option which holds the directory from where
+     * content of file is loaded.
+     */
+    public static final String DATA_DIRECTORY_OPTION = "data";
+    /**
+     * It represents default directory from where content of file is loaded.
+     */
+    public static final String DEFAULT_DATA_DIRECTORY = "data";
+    /**
+     * It represents the size of each slab (in bytes) in off-heap arena.
+     */
+    public static final int SLAB_SIZE = 64 * 1024;
+    /**
+     * It represents the number of slabs in off-heap arena. Arena holds two
+     * blocks so largest block can be loaded while another one is cached.
+     */
+    public static final int SLAB_COUNT = (int) ((2 * LPFConstant.BLOCK_SIZE) / SLAB_SIZE);
+    /**
+     * It represents the size of HDFS block (in bytes). File is cached at block
+     * granularity when trace names the offset or range read.
+     */
+    public static final long BLOCK_SIZE = 128L * 1024 * 1024;
+    /**
+     * It separates the file path and block index in path of a block.
+     */
+    public static final String BLOCK_PATH_SEPARATOR = "#blk";
+    /**
+     * It separates the operation and its arguments in a transaction. For e.g.
+     * open#0-1048576 reads first 1MB of the file.
+     */
+    public static final String OPERATION_ARGUMENT_DELIMITER = "#";
+    /**
+     * It separates start and end offset of range read.
+     */
+    public static final String RANGE_DELIMITER = "-";
+    /**
+     * It represents simulator option which holds the initial number of nodes
+     * in cache cluster.
+     */
+    public static final String CLUSTER_NODE_OPTION = "nodes";
+    /**
+     * It represents default initial number of nodes in cache cluster.
+     */
+    public static final int CLUSTER_NODE_COUNT = 4;
+    /**
+     * It represents number of virtual nodes of each node on hash ring.
+     */
+    public static final int CLUSTER_VIRTUAL_NODE_COUNT = 100;
+    /**
+     * It represents prefix of name of initial nodes of cache cluster.
+     */
+    public static final String CLUSTER_NODE_PREFIX = "node-";
+    /**
+     * It separates node name and virtual node index while hashing virtual
+     * node.
+     */
+    public static final String VIRTUAL_NODE_SEPARATOR = "#vn";
+    /**
+     * It represents simulator option which holds the port on which cache is
+     * exposed to remote clients.
+     */
+    public static final String SERVER_PORT_OPTION = "serve";
+    /**
+     * It represents the number of pending connections cache server can queue.
+     */
+    public static final int SERVER_BACKLOG = 4096;
+    /**
+     * It represents the initial size (in bytes) of read and write buffer of
+     * each connection.
+     */
+    public static final int SERVER_BUFFER_SIZE = 64 * 1024;
+    /**
+     * It represents LPF cache with correlation based prefetching.
+     */
+    public static final String LPF_PREFETCH_CACHE_TYPE = "LPF-PREFETCH";
+    /**
+     * It represents maximum number of files whose successors are tracked by
+     * prefetch engine.
+     */
+    public static final int PREFETCH_TABLE_COUNT = 4096;
+    /**
+     * It represents number of successors tracked for each file.
+     */
+    public static final int PREFETCH_SUCCESSOR_COUNT = 4;
+    /**
+     * It represents maximum number of files prefetched on single read.
+     */
+    public static final int PREFETCH_DEGREE = 2;
+    /**
+     * It represents minimum number of times successor should follow the file
+     * before it is prefetched.
+     */
+    public static final long PREFETCH_MIN_SUPPORT = 2L;
+    /**
+     * It represents minimum fraction of reads of file which successor should
+     * follow before it is prefetched.
+     */
+    public static final float PREFETCH_CONFIDENCE = 0.3f;
+    /**
+     * It represents maximum number of prefetched files which can be in cache
+     * without being read.
+     */
+    public static final int PREFETCH_BUDGET = 2;
+    /**
+     * It represents default time window (in ms) over which trace analyzer
+     * counts distinct files.
+     */
+    public static final long ANALYZER_WINDOW_SIZE = 60000L;
+    /**
+     * It represents precision of HyperLogLog used by trace analyzer. It uses
+     * 2^precision registers.
+     */
+    public static final int ANALYZER_HLL_PRECISION = 14;
+    /**
+     * It represents number of counters used to find most read files.
+     */
+    public static final int ANALYZER_TOP_K_CAPACITY = 1024;
+    /**
+     * It represents number of most read files reported.
+     */
+    public static final int ANALYZER_TOP_K_REPORT = 10;
+    /**
+     * It represents number of slots of table which tracks last read and
+     * create time of files. It should be power of 2.
+     */
+    public static final int ANALYZER_TABLE_SIZE = 1 << 20;
+    /**
+     * It represents number of buckets of time histograms.
+     */
+    public static final int ANALYZER_HISTOGRAM_BUCKET_COUNT = 48;
+    /**
+     * It represents number of recently removed files remembered by LPF cache.
+     * 0 disables ghost list.
+     */
+    public static final int GHOST_LIST_CAPACITY = 8;
+    /**
+     * It represents LPF cache with cost aware (GreedyDual) eviction.
+     */
+    public static final String LPF_COST_CACHE_TYPE = "LPF-COST";
+    /**
+     * It represents size (in bytes) of file whose size is not given in trace.
+     */
+    public static final long DEFAULT_FILE_SIZE = 1L;
+    /**
+     * It represents cost of miss of file whose cost is not given in trace.
+     */
+    public static final double DEFAULT_MISS_COST = 1.0;
+    /**
+     * It represents number of children of each node of eviction heap.
+     */
+    public static final int EVICTION_HEAP_ARITY = 4;
+    /**
+     * It represents LPF cache where least popular files are removed by
+     * background reclaimer.
+     */
+    public static final String LPF_RECLAIM_CACHE_TYPE = "LPF-RECLAIM";
+    /**
+     * It represents capacity of cache in bytes. If it is 0 then capacity is
+     * TOTAL_CACHE_ENTRY files.
+     */
+    public static final long CACHE_CAPACITY_BYTES = 0L;
+    /**
+     * It represents fraction of capacity above which reclaimer starts
+     * removing files.
+     */
+    public static final double RECLAIM_HIGH_WATERMARK = 1.0;
+    /**
+     * It represents fraction of capacity down to which reclaimer removes
+     * files.
+     */
+    public static final double RECLAIM_LOW_WATERMARK = 0.75;
+    /**
+     * It represents LPF cache which aggregates popularity per directory.
+     */
+    public static final String LPF_NAMESPACE_CACHE_TYPE = "LPF-NAMESPACE";
+    /**
+     * It represents operation which admits every file under a directory.
+     */
+    public static final String DIRECTORY_ADMIT = "admitdir";
+    /**
+     * It represents operation which removes every file under a directory
+     * from cache.
+     */
+    public static final String DIRECTORY_EVICT = "evictdir";
+    /**
+     * It separates the components of file path.
+     */
+    public static final String PATH_SEPARATOR = "/";
+    /**
+     * It represents average recent accesses per file of directory above which
+     * file of directory is admitted without waiting for its own access count.
+     */
+    public static final double DIRECTORY_PRIOR_THRESHOLD = 2.0;
+    /**
+     * It represents minimum number of files directory should hold so its
+     * average is used as prior.
+     */
+    public static final long DIRECTORY_MIN_FILE_COUNT = 2L;
+    /**
+     * It represents time (in ms) after which access count of directory is
+     * halved.
+     */
+    public static final long DIRECTORY_HALF_LIFE = 1000L;
+    /**
+     * It represents simulator option which holds the preload file used to
+     * warm up the cache at startup.
+     */
+    public static final String PRELOAD_OPTION = "preload";
+    /**
+     * It represents maximum number of ranked files written to preload file.
+     */
+    public static final int PRECOMPUTE_TOP_COUNT = 10000;
+    /**
+     * It represents simulator option which selects how trace is replayed.
+     */
+    public static final String REPLAY_OPTION = "replay";
+    /**
+     * It represents replay from primitive event log.
+     */
+    public static final String PRIMITIVE_REPLAY = "primitive";
+    /**
+     * It represents initial number of events, batches and files held by
+     * event log. Arrays grow as trace is read.
+     */
+    public static final int EVENT_LOG_INITIAL_CAPACITY = 1024;
+    /**
+     * It represents number of worker threads of cache server which run the
+     * requests against cache.
+     */
+    public static final int SERVER_WORKER_COUNT = 4;
+    /**
+     * It represents the size (in bytes) of pending responses of connection
+     * after which server stops reading its requests till responses are sent.
+     */
+    public static final int SERVER_WRITE_HIGH_WATER_MARK = 1024 * 1024;
+    /**
+     * It represents the number of requests of connection which can be
+     * processed by workers at a time. Server stops reading requests of
+     * connection beyond it.
+     */
+    public static final int SERVER_MAX_PENDING_REQUEST = 256;
 
 }
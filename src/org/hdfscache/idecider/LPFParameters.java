@@ -0,0 +1,68 @@
+package org.hdfscache.idecider;
+
+/**
+ * This class holds the LPF parameters of one cache which can be changed while
+ * cache is running. Initial value of each parameter is taken from LPFConstant.
+ * Every update is clamped within the safe bounds defined in LPFConstant and
+ * default window size never goes above window size threshold. Each cache has
+ * its own parameters so tuning one cache does not affect other caches.
+ *
+ * @author jsrudani
+ *
+ */
+public class LPFParameters {
+
+    /**
+     * It represents the caching eligiblity for file. If file access count is
+     * greater than threshold then it is eligible for caching.
+     */
+    private volatile long accessCountThreshold = LPFConstant.LPF_ACCESS_COUNT_THRESHOLD;
+    /**
+     * It represents window size given to a file when it starts a new window
+     * or is removed from cache.
+     */
+    private volatile long defaultWindowSize = LPFConstant.DEFAULT_WINDOW_SIZE;
+    /**
+     * It represents the maximum window size of a file.
+     */
+    private volatile long windowSizeThreshold = LPFConstant.WINDOW_SIZE_THRESHOLD;
+
+    public long getAccessCountThreshold() {
+        return accessCountThreshold;
+    }
+
+    public synchronized void setAccessCountThreshold(long threshold) {
+        accessCountThreshold = clamp(threshold, LPFConstant.MIN_ACCESS_COUNT_THRESHOLD, LPFConstant.MAX_ACCESS_COUNT_THRESHOLD);
+    }
+
+    public long getDefaultWindowSize() {
+        return defaultWindowSize;
+    }
+
+    public synchronized void setDefaultWindowSize(long windowSize) {
+        defaultWindowSize = clamp(windowSize, LPFConstant.MIN_WINDOW_SIZE, windowSizeThreshold);
+    }
+
+    public long getWindowSizeThreshold() {
+        return windowSizeThreshold;
+    }
+
+    public synchronized void setWindowSizeThreshold(long threshold) {
+        windowSizeThreshold = clamp(threshold, LPFConstant.MIN_WINDOW_SIZE, LPFConstant.MAX_WINDOW_SIZE_THRESHOLD);
+        if (defaultWindowSize > windowSizeThreshold) {
+            defaultWindowSize = windowSizeThreshold;
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * It returns current value of parameters in the form
+     * [AccessCountThreshold,DefaultWindowSize,WindowSizeThreshold]
+     */
+    public synchronized String describe() {
+        return "[" + accessCountThreshold + "," + defaultWindowSize + "," + windowSizeThreshold + "]";
+    }
+}
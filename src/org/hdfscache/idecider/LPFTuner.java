@@ -0,0 +1,290 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class tunes LPF parameters while cache is running. It samples hit ratio
+ * of LPF cache over fixed interval and changes one parameter at a time by hill
+ * climbing. If hit ratio drops after a step then the step is reverted and that
+ * parameter is moved in opposite direction next time. Parameters are tuned in
+ * round robin order [AccessCountThreshold, DefaultWindowSize,
+ * WindowSizeThreshold] and always stay within bounds of LPFParameters. Only
+ * parameters of the tuned cache are changed.
+ *
+ * @author jsrudani
+ *
+ */
+public class LPFTuner {
+
+    private static final int ACCESS_COUNT_THRESHOLD = 0;
+    private static final int DEFAULT_WINDOW_SIZE = 1;
+    private static final int WINDOW_SIZE_THRESHOLD = 2;
+    private static final int PARAMETER_COUNT = 3;
+
+    private final LPFCache cache;
+    private final LPFParameters parameters;
+    private final ScheduledExecutorService tuningExecutor;
+    /**
+     * This represents the direction (+1/-1) in which each parameter is moved.
+     */
+    private final int[] direction = new int[] { 1, 1, 1 };
+    /**
+     * This represents the value of every parameter before last step. Step of
+     * WindowSizeThreshold may also lower DefaultWindowSize, so all of them
+     * are restored to revert the step.
+     */
+    private final long[] previousValues = new long[PARAMETER_COUNT];
+    /**
+     * This represents the parameter changed in last step. It is -1 if last
+     * step is not yet evaluated.
+     */
+    private int pendingParameter = -1;
+    /**
+     * This represents the parameter which is tuned next.
+     */
+    private int nextParameter = ACCESS_COUNT_THRESHOLD;
+    /**
+     * This represents hit ratio with currently accepted parameters.
+     */
+    private float baselineHitRatio = -1.0f;
+    private long lastHit;
+    private long lastTotalRequest;
+    /**
+     * This represents history of tuning steps. Only last TUNING_HISTORY_SIZE
+     * steps are kept.
+     */
+    private final LinkedList<TuningRecord> tuningHistory = new LinkedList<TuningRecord>();
+
+    public LPFTuner(LPFCache cache) {
+        this.cache = cache;
+        this.parameters = cache.getParameters();
+        this.tuningExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "lpf-tuner");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * It starts sampling hit ratio and tuning parameters at every tuning
+     * interval.
+     */
+    public void start() {
+        lastHit = cache.getLPF_CACHE_HIT().get();
+        lastTotalRequest = cache.getLPF_CACHE_TOTAL_REQUEST().get();
+        tuningExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tune();
+                } catch (Exception ex) {
+                    System.out.println("LPFTuner -> Error in tuning parameters " + ex.getMessage());
+                }
+            }
+        }, LPFConstant.TUNING_INTERVAL, LPFConstant.TUNING_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        tuningExecutor.shutdownNow();
+    }
+
+    /**
+     * It evaluates the last step with hit ratio of the interval and takes the
+     * next step.
+     */
+    synchronized void tune() {
+        long hit = cache.getLPF_CACHE_HIT().get();
+        long totalRequest = cache.getLPF_CACHE_TOTAL_REQUEST().get();
+        long intervalRequest = totalRequest - lastTotalRequest;
+        if (intervalRequest < LPFConstant.TUNING_MIN_REQUEST) {
+            return;
+        }
+        float hitRatio = ((float) (hit - lastHit)) / ((float) intervalRequest);
+        lastHit = hit;
+        lastTotalRequest = totalRequest;
+        String action = "baseline";
+        if (pendingParameter >= 0) {
+            if (hitRatio < baselineHitRatio) {
+                // Step made hit ratio worse so revert it and try other
+                // direction next time
+                restoreParameters(previousValues);
+                direction[pendingParameter] = -direction[pendingParameter];
+                action = "revert " + parameterName(pendingParameter);
+            } else {
+                baselineHitRatio = hitRatio;
+                action = "keep " + parameterName(pendingParameter);
+            }
+        } else {
+            baselineHitRatio = hitRatio;
+        }
+        pendingParameter = -1;
+        // Take the next step. If parameter is already at its bound then move
+        // it in other direction.
+        int parameter = nextParameter;
+        nextParameter = (nextParameter + 1) % PARAMETER_COUNT;
+        long currentValue = getParameter(parameter);
+        long[] currentValues = new long[PARAMETER_COUNT];
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            currentValues[i] = getParameter(i);
+        }
+        for (int attempt = 0; attempt < 2 && pendingParameter < 0; attempt++) {
+            setParameter(parameter, currentValue + (direction[parameter] * stepSize(parameter)));
+            if (getParameter(parameter) != currentValue) {
+                System.arraycopy(currentValues, 0, previousValues, 0, PARAMETER_COUNT);
+                pendingParameter = parameter;
+                action += ", step " + parameterName(parameter);
+            } else {
+                direction[parameter] = -direction[parameter];
+            }
+        }
+        recordStep(hitRatio, action);
+    }
+
+    private void recordStep(float hitRatio, String action) {
+        synchronized (tuningHistory) {
+            tuningHistory.addLast(new TuningRecord(System.currentTimeMillis(), hitRatio, parameters.getAccessCountThreshold(), parameters.getDefaultWindowSize(), parameters.getWindowSizeThreshold(), action));
+            if (tuningHistory.size() > LPFConstant.TUNING_HISTORY_SIZE) {
+                tuningHistory.removeFirst();
+            }
+        }
+    }
+
+    private long getParameter(int parameter) {
+        switch (parameter) {
+            case ACCESS_COUNT_THRESHOLD:
+                return parameters.getAccessCountThreshold();
+            case DEFAULT_WINDOW_SIZE:
+                return parameters.getDefaultWindowSize();
+            default:
+                return parameters.getWindowSizeThreshold();
+        }
+    }
+
+    private void setParameter(int parameter, long value) {
+        switch (parameter) {
+            case ACCESS_COUNT_THRESHOLD:
+                parameters.setAccessCountThreshold(value);
+                break;
+            case DEFAULT_WINDOW_SIZE:
+                parameters.setDefaultWindowSize(value);
+                break;
+            default:
+                parameters.setWindowSizeThreshold(value);
+                break;
+        }
+    }
+
+    /**
+     * It sets every parameter to given value. Threshold is restored first so
+     * that default window size is not clamped by the threshold of the step.
+     *
+     * @param values
+     */
+    private void restoreParameters(long[] values) {
+        setParameter(WINDOW_SIZE_THRESHOLD, values[WINDOW_SIZE_THRESHOLD]);
+        setParameter(DEFAULT_WINDOW_SIZE, values[DEFAULT_WINDOW_SIZE]);
+        setParameter(ACCESS_COUNT_THRESHOLD, values[ACCESS_COUNT_THRESHOLD]);
+    }
+
+    private long stepSize(int parameter) {
+        return (parameter == ACCESS_COUNT_THRESHOLD) ? LPFConstant.TUNING_ACCESS_COUNT_STEP : LPFConstant.TUNING_WINDOW_SIZE_STEP;
+    }
+
+    private String parameterName(int parameter) {
+        switch (parameter) {
+            case ACCESS_COUNT_THRESHOLD:
+                return "AccessCountThreshold";
+            case DEFAULT_WINDOW_SIZE:
+                return "DefaultWindowSize";
+            default:
+                return "WindowSizeThreshold";
+        }
+    }
+
+    /**
+     * It returns current value of tuned parameters.
+     *
+     * @return TuningRecord holding current parameters and last hit ratio
+     */
+    public TuningRecord getCurrentParameters() {
+        return new TuningRecord(System.currentTimeMillis(), baselineHitRatio, parameters.getAccessCountThreshold(), parameters.getDefaultWindowSize(), parameters.getWindowSizeThreshold(), "current");
+    }
+
+    /**
+     * It returns copy of tuning history in the order steps were taken.
+     *
+     * @return List of TuningRecord
+     */
+    public List<TuningRecord> getTuningHistory() {
+        synchronized (tuningHistory) {
+            return new ArrayList<TuningRecord>(tuningHistory);
+        }
+    }
+
+    public LPFCache getCache() {
+        return cache;
+    }
+
+    /**
+     * This class represents one step of tuning. It holds hit ratio of the
+     * interval and parameters after the step.
+     *
+     * @author jsrudani
+     *
+     */
+    public static class TuningRecord {
+        private final long time;
+        private final float hitRatio;
+        private final long accessCountThreshold;
+        private final long defaultWindowSize;
+        private final long windowSizeThreshold;
+        private final String action;
+
+        TuningRecord(long time, float hitRatio, long accessCountThreshold, long defaultWindowSize, long windowSizeThreshold, String action) {
+            this.time = time;
+            this.hitRatio = hitRatio;
+            this.accessCountThreshold = accessCountThreshold;
+            this.defaultWindowSize = defaultWindowSize;
+            this.windowSizeThreshold = windowSizeThreshold;
+            this.action = action;
+        }
+
+        @Override
+        public String toString() {
+            return time + "|" + hitRatio + "|" + accessCountThreshold + "|" + defaultWindowSize + "|" + windowSizeThreshold + "|" + action;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public float getHitRatio() {
+            return hitRatio;
+        }
+
+        public long getAccessCountThreshold() {
+            return accessCountThreshold;
+        }
+
+        public long getDefaultWindowSize() {
+            return defaultWindowSize;
+        }
+
+        public long getWindowSizeThreshold() {
+            return windowSizeThreshold;
+        }
+
+        public String getAction() {
+            return action;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.hdfscache.idecider;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class loads file content from local directory. It stands in for
+ * DataNode. File path of inode is resolved relative to the root directory and
+ * path which leads outside the root directory, for e.g. through "..", is
+ * rejected.
+ * Content of a block is the part of its file starting at block offset.
+ * 
+ * @author jsrudani
+ * 
+ */
+public class LocalDirectoryContentSource implements FileContentSource {
+
+    private final File rootDirectory;
+
+    public LocalDirectoryContentSource(String rootDirectory) {
+        this.rootDirectory = new File(rootDirectory);
+    }
+
+    @Override
+    public long getSize(Inode file) throws IOException {
+        File content = resolve(file);
+        if (!content.isFile()) {
+            throw new IOException("No content for file " + file.getPath() + " in " + rootDirectory);
+        }
+        if (file instanceof Block) {
+            long offset = ((Block) file).getOffset();
+            return Math.max(0L, Math.min(LPFConstant.BLOCK_SIZE, content.length() - offset));
+        }
+        return content.length();
+    }
+
+    @Override
+    public void load(Inode file, ByteBuffer[] buffers) throws IOException {
+        try (FileInputStream fin = new FileInputStream(resolve(file));
+                FileChannel channel = fin.getChannel()) {
+            if (file instanceof Block) {
+                channel.position(((Block) file).getOffset());
+            }
+            // Scatter read directly into the buffers
+            long remaining = 0L;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                long read = channel.read(buffers);
+                if (read < 0) {
+                    throw new IOException("File " + file.getPath() + " is truncated while loading");
+                }
+                remaining -= read;
+            }
+        }
+    }
+
+    private File resolve(Inode file) throws IOException {
+        String path = (file instanceof Block) ? ((Block) file).getFile().getPath() : file.getPath();
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        File root = rootDirectory.getCanonicalFile();
+        File content = new File(root, path).getCanonicalFile();
+        if (!content.toPath().startsWith(root.toPath())) {
+            throw new IOException("File " + file.getPath() + " is outside " + rootDirectory);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,128 @@
+package org.hdfscache.idecider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class adds namespace awareness to LPF cache. Every read is rolled up
+ * into popularity of directories of the file. File which is not yet popular
+ * enough for LPF cache is admitted anyway if its directory is hot, i.e. files
+ * of the directory are read at least DIRECTORY_PRIOR_THRESHOLD times on
+ * average recently. So new file of hot partition or table is cached on its
+ * first read. Whole directory subtree can also be admitted or removed at once.
+ * Files are added to directory trie when they are created, so subtree is
+ * found from trie without scanning every file.
+ *
+ * @author jsrudani
+ *
+ */
+public class NamespaceLPFCache implements Cache, CacheStatistics {
+
+    private final LPFCache cache;
+    private final DirectoryTrie directoryTrie = new DirectoryTrie();
+    /**
+     * This represents number of files admitted because their directory is
+     * hot.
+     */
+    private final AtomicLong priorAdmission = new AtomicLong(0);
+    /**
+     * This represents number of files admitted by subtree admission.
+     */
+    private final AtomicLong subtreeAdmission = new AtomicLong(0);
+    /**
+     * This represents number of files removed by subtree eviction.
+     */
+    private final AtomicLong subtreeEviction = new AtomicLong(0);
+
+    public NamespaceLPFCache(LPFCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * It adds the created file to directory trie.
+     *
+     * @param file
+     */
+    @Override
+    public void onCreate(Inode file) {
+        directoryTrie.register(file.getPath());
+    }
+
+    @Override
+    public void read(Inode file) {
+        long currentTime = System.currentTimeMillis();
+        directoryTrie.recordAccess(file, currentTime);
+        synchronized (file) {
+            cache.read(file);
+            // LPF cache did not admit the file, check the prior of its
+            // directory
+            if (!file.isCached() && directoryTrie.prior(file, currentTime) >= LPFConstant.DIRECTORY_PRIOR_THRESHOLD && cache.prefetch(file)) {
+                priorAdmission.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * It admits every created file under the directory.
+     *
+     * @param directoryPath
+     * @return number of files admitted
+     */
+    @Override
+    public int admitSubtree(String directoryPath) {
+        int admitted = 0;
+        for (String path : directoryTrie.getFiles(directoryPath)) {
+            Inode file = FileOperation.getFileToInodeMap().get(path);
+            if (file != null && cache.prefetch(file)) {
+                admitted++;
+            }
+        }
+        subtreeAdmission.addAndGet(admitted);
+        System.out.println("Admitted " + admitted + " files under " + directoryPath);
+        return admitted;
+    }
+
+    /**
+     * It removes every cached file under the directory.
+     *
+     * @param directoryPath
+     * @return number of files removed
+     */
+    @Override
+    public int evictSubtree(String directoryPath) {
+        int evicted = 0;
+        for (String path : directoryTrie.getFiles(directoryPath)) {
+            Inode file = FileOperation.getFileToInodeMap().get(path);
+            if (file != null && cache.invalidate(file)) {
+                evicted++;
+            }
+        }
+        subtreeEviction.addAndGet(evicted);
+        System.out.println("Removed " + evicted + " files under " + directoryPath);
+        return evicted;
+    }
+
+    /**
+     * It returns the statistics in the form
+     * [Request,Hit,Miss,PriorAdmission,SubtreeAdmission,SubtreeEviction]
+     */
+    @Override
+    public String getStatistics() {
+        return "[" + cache.getLPF_CACHE_TOTAL_REQUEST().get() + "," + cache.getLPF_CACHE_HIT().get() + "," + cache.getLPF_CACHE_MISS().get() + "," + priorAdmission.get() + "," + subtreeAdmission.get() + "," + subtreeEviction.get() + "]";
+    }
+
+    public DirectoryTrie getDirectoryTrie() {
+        return directoryTrie;
+    }
+
+    public AtomicLong getPriorAdmission() {
+        return priorAdmission;
+    }
+
+    public AtomicLong getSubtreeAdmission() {
+        return subtreeAdmission;
+    }
+
+    public AtomicLong getSubtreeEviction() {
+        return subtreeEviction;
+    }
+}
@@ -0,0 +1,190 @@
+package org.hdfscache.idecider;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class computes offline which files are expected to be popular in
+ * coming period and writes them to preload file. Historical trace files are
+ * scanned in parallel, one task per trace. For every file, reads are counted
+ * per hour of day (UTC) which gives time of day profile of the file. Expected
+ * reads per hour in coming period is the average of its profile over hours of
+ * the period across days covered by traces. Files are ranked on it and top
+ * PRECOMPUTE_TOP_COUNT files are written.
+ *
+ * @author jsrudani
+ *
+ */
+public class PopularityPrecompute {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+    private static final long DAY = 24L * HOUR;
+
+    private final List<String> traceFiles;
+    private final int startHour;
+    private final int periodHours;
+
+    public PopularityPrecompute(List<String> traceFiles, int startHour, int periodHours) {
+        if (startHour < 0 || startHour > 23 || periodHours < 1 || periodHours > 24) {
+            throw new IllegalArgumentException("Start hour should be in [0,23] and period in [1,24] hours");
+        }
+        this.traceFiles = traceFiles;
+        this.startHour = startHour;
+        this.periodHours = periodHours;
+    }
+
+    /**
+     * It scans all the traces and returns ranked list of files.
+     *
+     * @return PreloadList
+     * @throws Exception
+     */
+    public PreloadList compute() throws Exception {
+        ExecutorService scanExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(traceFiles.size(), Runtime.getRuntime().availableProcessors())));
+        TraceProfile merged = new TraceProfile();
+        try {
+            List<Future<TraceProfile>> results = new ArrayList<Future<TraceProfile>>();
+            for (final String traceFile : traceFiles) {
+                results.add(scanExecutor.submit(new Callable<TraceProfile>() {
+                    @Override
+                    public TraceProfile call() throws Exception {
+                        return scan(traceFile);
+                    }
+                }));
+            }
+            for (Future<TraceProfile> result : results) {
+                merged.merge(result.get());
+            }
+        } finally {
+            scanExecutor.shutdownNow();
+        }
+        return rank(merged);
+    }
+
+    /**
+     * It builds the time of day profile of every file read in the trace.
+     *
+     * @param traceFile
+     * @return TraceProfile
+     * @throws Exception
+     */
+    TraceProfile scan(String traceFile) throws Exception {
+        TraceProfile profile = new TraceProfile();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(traceFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Less number of fields in File " + traceFile);
+                }
+                if (LPFConstant.FILE_OPEN.equals(fields[2])) {
+                    profile.add(fields[1], Long.parseLong(fields[0]));
+                }
+            }
+        }
+        System.out.println("Scanned " + traceFile + " files " + profile.readsPerHourOfDay.size());
+        return profile;
+    }
+
+    private PreloadList rank(TraceProfile profile) {
+        long days = Math.max(1L, (profile.lastTimestamp - profile.firstTimestamp + DAY - 1) / DAY);
+        final Map<String, Float> expectedReads = new HashMap<String, Float>();
+        for (Map.Entry<String, long[]> entry : profile.readsPerHourOfDay.entrySet()) {
+            long reads = 0;
+            for (int i = 0; i < periodHours; i++) {
+                reads += entry.getValue()[(startHour + i) % 24];
+            }
+            if (reads > 0) {
+                expectedReads.put(entry.getKey(), ((float) reads) / (days * periodHours));
+            }
+        }
+        List<String> paths = new ArrayList<String>(expectedReads.keySet());
+        Collections.sort(paths, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return Float.compare(expectedReads.get(o2), expectedReads.get(o1));
+            }
+        });
+        if (paths.size() > LPFConstant.PRECOMPUTE_TOP_COUNT) {
+            paths = new ArrayList<String>(paths.subList(0, LPFConstant.PRECOMPUTE_TOP_COUNT));
+        }
+        List<Float> rankedReads = new ArrayList<Float>(paths.size());
+        for (String path : paths) {
+            rankedReads.add(expectedReads.get(path));
+        }
+        return new PreloadList(startHour, periodHours, paths, rankedReads);
+    }
+
+    /**
+     * This class holds reads of every file per hour of day.
+     *
+     * @author jsrudani
+     *
+     */
+    static class TraceProfile {
+        private final Map<String, long[]> readsPerHourOfDay = new HashMap<String, long[]>();
+        private long firstTimestamp = Long.MAX_VALUE;
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        void add(String path, long timestamp) {
+            long[] profile = readsPerHourOfDay.get(path);
+            if (profile == null) {
+                profile = new long[24];
+                readsPerHourOfDay.put(path, profile);
+            }
+            profile[(int) ((timestamp % DAY) / HOUR)]++;
+            firstTimestamp = Math.min(firstTimestamp, timestamp);
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+        }
+
+        void merge(TraceProfile other) {
+            for (Map.Entry<String, long[]> entry : other.readsPerHourOfDay.entrySet()) {
+                long[] profile = readsPerHourOfDay.get(entry.getKey());
+                if (profile == null) {
+                    readsPerHourOfDay.put(entry.getKey(), entry.getValue());
+                } else {
+                    for (int i = 0; i < 24; i++) {
+                        profile[i] += entry.getValue()[i];
+                    }
+                }
+            }
+            firstTimestamp = Math.min(firstTimestamp, other.firstTimestamp);
+            lastTimestamp = Math.max(lastTimestamp, other.lastTimestamp);
+        }
+    }
+
+    /**
+     * It runs the precompute.
+     *
+     * @param args
+     *            [PreloadFile StartHour PeriodHours TraceFile+]
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 4) {
+                throw new IllegalArgumentException("Usage: PopularityPrecompute <preloadFile> <startHour> <periodHours> <trace>...");
+            }
+            List<String> traceFiles = new ArrayList<String>();
+            for (int i = 3; i < args.length; i++) {
+                traceFiles.add(args[i]);
+            }
+            PreloadList preload = new PopularityPrecompute(traceFiles, Integer.parseInt(args[1]), Integer.parseInt(args[2])).compute();
+            preload.save(args[0]);
+            System.out.println("Wrote " + preload.getPaths().size() + " ranked files to " + args[0]);
+        } catch (Throwable t) {
+            System.out.println(t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class mines co-access pattern of files from the stream of file reads.
+ * For every file it keeps a small successor table which counts the files read
+ * right after it. Table has fixed number of slots and when it is full, the
+ * successor with least count is replaced (space saving) so frequent successors
+ * stay in table. New successor takes over the count of replaced one, which
+ * is kept as its error, so count - error is the number of times successor is
+ * surely seen. Only fixed number of tables are kept, the table of file which
+ * is not read for longest time is removed first. So memory used is bounded.
+ *
+ * @author jsrudani
+ *
+ */
+public class PrefetchEngine {
+
+    private final int tableCount;
+    private final int successorCount;
+    private final Map<Inode, SuccessorTable> successorTables;
+
+    public PrefetchEngine(final int tableCount, int successorCount) {
+        this.tableCount = tableCount;
+        this.successorCount = successorCount;
+        this.successorTables = new LinkedHashMap<Inode, SuccessorTable>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Inode, SuccessorTable> eldest) {
+                return size() > PrefetchEngine.this.tableCount;
+            }
+        };
+    }
+
+    /**
+     * It records that current file is read right after previous file.
+     *
+     * @param previous
+     * @param current
+     */
+    public synchronized void record(Inode previous, Inode current) {
+        SuccessorTable table = successorTables.get(previous);
+        if (table == null) {
+            table = new SuccessorTable(successorCount);
+            successorTables.put(previous, table);
+        }
+        table.add(current);
+    }
+
+    /**
+     * It returns the files which are likely to be read after trigger file.
+     * Successor is returned only if it is surely seen (count - error) at least
+     * PREFETCH_MIN_SUPPORT times and it follows trigger file in at least PREFETCH_CONFIDENCE
+     * fraction of reads. At most PREFETCH_DEGREE files are returned, most
+     * frequent successor first.
+     *
+     * @param trigger
+     * @return List of successor files
+     */
+    public synchronized List<Inode> predict(Inode trigger) {
+        List<Inode> prediction = new ArrayList<Inode>(LPFConstant.PREFETCH_DEGREE);
+        SuccessorTable table = successorTables.get(trigger);
+        if (table == null) {
+            return prediction;
+        }
+        boolean[] selected = new boolean[successorCount];
+        while (prediction.size() < LPFConstant.PREFETCH_DEGREE) {
+            int best = -1;
+            for (int i = 0; i < successorCount; i++) {
+                if (table.successors[i] != null && !selected[i] && (best < 0 || table.counts[i] > table.counts[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            selected[best] = true;
+            long support = table.counts[best] - table.errors[best];
+            if (support < LPFConstant.PREFETCH_MIN_SUPPORT || support < LPFConstant.PREFETCH_CONFIDENCE * table.total) {
+                continue;
+            }
+            prediction.add(table.successors[best]);
+        }
+        return prediction;
+    }
+
+    public synchronized int getTableCount() {
+        return successorTables.size();
+    }
+
+    /**
+     * This class holds the successors of one file and their count.
+     *
+     * @author jsrudani
+     *
+     */
+    static class SuccessorTable {
+        private final Inode[] successors;
+        private final long[] counts;
+        /**
+         * This represents the count inherited by successor when it replaced
+         * least frequent one. It is the upper bound of overestimation.
+         */
+        private final long[] errors;
+        /**
+         * This represents number of reads which followed the file.
+         */
+        private long total;
+
+        SuccessorTable(int successorCount) {
+            this.successors = new Inode[successorCount];
+            this.counts = new long[successorCount];
+            this.errors = new long[successorCount];
+        }
+
+        void add(Inode file) {
+            total++;
+            int leastFrequent = 0;
+            for (int i = 0; i < successors.length; i++) {
+                if (successors[i] == null || successors[i].equals(file)) {
+                    successors[i] = file;
+                    counts[i]++;
+                    return;
+                }
+                if (counts[i] < counts[leastFrequent]) {
+                    leastFrequent = i;
+                }
+            }
+            // Table is full. Replace least frequent successor and inherit its
+            // count as error so new successor has to prove itself before it is
+            // predicted
+            successors[leastFrequent] = file;
+            errors[leastFrequent] = counts[leastFrequent];
+            counts[leastFrequent]++;
+        }
+    }
+}
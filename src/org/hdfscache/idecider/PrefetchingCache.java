@@ -0,0 +1,141 @@
+package org.hdfscache.idecider;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class adds correlation based prefetching to LPF cache. Every read is
+ * given to prefetch engine which learns the files read together. When a file
+ * is read, its likely successors are admitted to LPF cache right away without
+ * waiting for them to become popular. Number of prefetched files which are not
+ * yet read is limited by PREFETCH_BUDGET so prefetching can not take whole
+ * cache.
+ *
+ * Accuracy is fraction of prefetched files which are read before they are
+ * removed from cache. Coverage is fraction of misses which are avoided by
+ * prefetching.
+ *
+ * @author jsrudani
+ *
+ */
+public class PrefetchingCache implements Cache, CacheEvictionListener, CacheStatistics {
+
+    private final LPFCache cache;
+    private final PrefetchEngine prefetchEngine = new PrefetchEngine(LPFConstant.PREFETCH_TABLE_COUNT, LPFConstant.PREFETCH_SUCCESSOR_COUNT);
+    /**
+     * This represents the file read last. Successor of it is recorded on next
+     * read.
+     */
+    private final AtomicReference<Inode> previousFile = new AtomicReference<Inode>();
+    /**
+     * This represents prefetched files which are cached but not yet read.
+     */
+    private final Set<Inode> outstandingPrefetch = ConcurrentHashMap.newKeySet();
+    private final AtomicLong totalRequest = new AtomicLong(0);
+    private final AtomicLong demandHit = new AtomicLong(0);
+    private final AtomicLong demandMiss = new AtomicLong(0);
+    private final AtomicLong prefetchIssued = new AtomicLong(0);
+    /**
+     * This represents prefetched files which are read while cached.
+     */
+    private final AtomicLong prefetchUseful = new AtomicLong(0);
+    /**
+     * This represents prefetched files which are removed before being read.
+     */
+    private final AtomicLong prefetchWasted = new AtomicLong(0);
+    /**
+     * This represents predictions dropped because budget was exhausted.
+     */
+    private final AtomicLong prefetchDropped = new AtomicLong(0);
+
+    public PrefetchingCache(LPFCache cache) {
+        this.cache = cache;
+        cache.addEvictionListener(this);
+    }
+
+    @Override
+    public void read(Inode file) {
+        boolean hit;
+        synchronized (file) {
+            hit = file.isCached();
+            cache.read(file);
+        }
+        totalRequest.incrementAndGet();
+        if (hit) {
+            demandHit.incrementAndGet();
+            if (outstandingPrefetch.remove(file)) {
+                prefetchUseful.incrementAndGet();
+            }
+        } else {
+            demandMiss.incrementAndGet();
+        }
+        Inode previous = previousFile.getAndSet(file);
+        if (previous != null && !previous.equals(file)) {
+            prefetchEngine.record(previous, file);
+        }
+        for (Inode successor : prefetchEngine.predict(file)) {
+            if (outstandingPrefetch.size() >= LPFConstant.PREFETCH_BUDGET) {
+                prefetchDropped.incrementAndGet();
+                break;
+            }
+            // Mark it before admission so that eviction racing with admission
+            // is counted as wasted
+            if (outstandingPrefetch.add(successor)) {
+                if (cache.prefetch(successor)) {
+                    prefetchIssued.incrementAndGet();
+                } else {
+                    outstandingPrefetch.remove(successor);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onEviction(Inode file) {
+        if (outstandingPrefetch.remove(file)) {
+            prefetchWasted.incrementAndGet();
+        }
+    }
+
+    /**
+     * It returns useful prefetches over issued prefetches.
+     */
+    public float getAccuracy() {
+        return prefetchUseful.get() / (float) Math.max(1L, prefetchIssued.get());
+    }
+
+    /**
+     * It returns misses avoided by prefetching over misses there would be
+     * without prefetching.
+     */
+    public float getCoverage() {
+        return prefetchUseful.get() / (float) Math.max(1L, prefetchUseful.get() + demandMiss.get());
+    }
+
+    /**
+     * It returns the statistics of prefetching in the form
+     * [Request,Hit,Miss,PrefetchIssued,PrefetchUseful,PrefetchWasted,PrefetchDropped,Accuracy,Coverage]
+     */
+    @Override
+    public String getStatistics() {
+        return "[" + totalRequest.get() + "," + demandHit.get() + "," + demandMiss.get() + "," + prefetchIssued.get() + "," + prefetchUseful.get() + "," + prefetchWasted.get() + "," + prefetchDropped.get() + "," + getAccuracy() + "," + getCoverage() + "]";
+    }
+
+    public AtomicLong getPrefetchIssued() {
+        return prefetchIssued;
+    }
+
+    public AtomicLong getPrefetchUseful() {
+        return prefetchUseful;
+    }
+
+    public AtomicLong getPrefetchWasted() {
+        return prefetchWasted;
+    }
+
+    public AtomicLong getPrefetchDropped() {
+        return prefetchDropped;
+    }
+}
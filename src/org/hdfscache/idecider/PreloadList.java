@@ -0,0 +1,165 @@
+package org.hdfscache.idecider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the files expected to be popular in coming period ranked
+ * by expected number of reads per hour. It is prepared offline by
+ * PopularityPrecompute and used to warm up LPF cache at startup. It is written
+ * and read through memory mapped file.
+ *
+ * Layout of preload file is [Magic Version StartHour PeriodHours FileCount]
+ * followed by one record per file [ExpectedReadsPerHour PathLength Path] in
+ * descending order of expected reads.
+ *
+ * @author jsrudani
+ *
+ */
+public class PreloadList {
+
+    /**
+     * It is used to identify preload file. It is "LPFP" in ASCII.
+     */
+    private static final int PRELOAD_MAGIC = 0x4C504650;
+    private static final int PRELOAD_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4;
+    private static final int RECORD_FIXED_SIZE = 4 + 2;
+
+    /**
+     * This represents the hour of day (UTC) from which period starts.
+     */
+    private final int startHour;
+    private final int periodHours;
+    private final List<String> paths;
+    private final List<Float> expectedReads;
+
+    public PreloadList(int startHour, int periodHours, List<String> paths, List<Float> expectedReads) {
+        this.startHour = startHour;
+        this.periodHours = periodHours;
+        this.paths = paths;
+        this.expectedReads = expectedReads;
+    }
+
+    /**
+     * It admits the top ranked files into cache in single pass. Files which
+     * are not yet created are created since they exist in namespace of
+     * historical traces.
+     *
+     * @param cache
+     * @return number of files admitted
+     * @throws Exception
+     */
+    public int apply(LPFCache cache) throws Exception {
+        List<Inode> files = new ArrayList<Inode>(paths.size());
+        double[] readsPerHour = new double[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            if (!FileOperation.getFileToInodeMap().containsKey(paths.get(i))) {
+                FileOperation.create(paths.get(i));
+            }
+            files.add(FileOperation.getFileToInodeMap().get(paths.get(i)));
+            readsPerHour[i] = expectedReads.get(i);
+        }
+        int loaded = cache.bulkLoad(files, readsPerHour);
+        System.out.println("Preloaded " + loaded + " of " + paths.size() + " ranked files for hours [" + startHour + "," + ((startHour + periodHours) % 24) + ")");
+        return loaded;
+    }
+
+    /**
+     * It writes the list to given file. List is first written to temporary
+     * file and then moved so the previous list is never left half written.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void save(String filename)
+            throws IOException {
+        byte[][] encodedPaths = new byte[paths.size()][];
+        int size = HEADER_SIZE;
+        for (int i = 0; i < encodedPaths.length; i++) {
+            encodedPaths[i] = paths.get(i).getBytes(StandardCharsets.UTF_8);
+            if (encodedPaths[i].length > Short.MAX_VALUE) {
+                throw new IOException("Path is too long " + paths.get(i));
+            }
+            size += RECORD_FIXED_SIZE + encodedPaths[i].length;
+        }
+        File target = new File(filename);
+        File temp = new File(filename + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+                FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(PRELOAD_MAGIC);
+            buffer.putInt(PRELOAD_VERSION);
+            buffer.putInt(startHour);
+            buffer.putInt(periodHours);
+            buffer.putInt(encodedPaths.length);
+            for (int i = 0; i < encodedPaths.length; i++) {
+                buffer.putFloat(expectedReads.get(i));
+                buffer.putShort((short) encodedPaths[i].length);
+                buffer.put(encodedPaths[i]);
+            }
+            buffer.force();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * It reads the list from given file.
+     *
+     * @param filename
+     * @return PreloadList
+     * @throws IOException
+     */
+    public static PreloadList load(String filename)
+            throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "r");
+                FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != PRELOAD_MAGIC) {
+                throw new IOException("Not a valid preload file");
+            }
+            int version = buffer.getInt();
+            if (version != PRELOAD_VERSION) {
+                throw new IOException("Unsupported preload file version " + version);
+            }
+            int startHour = buffer.getInt();
+            int periodHours = buffer.getInt();
+            int fileCount = buffer.getInt();
+            List<String> paths = new ArrayList<String>(fileCount);
+            List<Float> expectedReads = new ArrayList<Float>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                expectedReads.add(buffer.getFloat());
+                byte[] path = new byte[buffer.getShort()];
+                buffer.get(path);
+                paths.add(new String(path, StandardCharsets.UTF_8));
+            }
+            return new PreloadList(startHour, periodHours, paths, expectedReads);
+        }
+    }
+
+    public int getStartHour() {
+        return startHour;
+    }
+
+    public int getPeriodHours() {
+        return periodHours;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public List<Float> getExpectedReads() {
+        return expectedReads;
+    }
+}
@@ -85,7 +85,9 @@ public class Preprocessing {
     /**
      * This method is used to process line and extract Timestamp, File name and
      * Operation performed on File. It also prepares the Map<Timestamp,Task>.
-     * Fields has specific order [Timestamp Filename Operation]
+     * Fields has specific order [Timestamp Filename Operation Argument*].
+     * Arguments are optional and kept with operation. For e.g. offset or range
+     * of file read by open.
      * 
      * @param fields
      *            Represents Array of fields seperated by space\tab
@@ -95,12 +97,15 @@ public class Preprocessing {
             throws IllegalArgumentException {
         // System.out.println("Processing single line with fields " +
         // fields.length);
-        if (fields.length != 3) {
-            throw new IllegalArgumentException("Less/More number of fields in File");
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Less number of fields in File");
         }
         long currentTimestamp = Long.valueOf(fields[0]);
         String filename = fields[1];
         String operation = fields[2];
+        for (int i = 3; i < fields.length; i++) {
+            operation += LPFConstant.OPERATION_ARGUMENT_DELIMITER + fields[i];
+        }
         // System.out.println(currentTimestamp + "," + filename + "," +
         // operation);
 
@@ -0,0 +1,107 @@
+package org.hdfscache.idecider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class replays the event log as per arrival time on single thread.
+ * Events are dispatched to cache by file id through inode table indexed by
+ * file id, so replay itself neither allocates tasks per batch nor looks up
+ * files by name. Read of LPF cache does not allocate on hit or on miss which
+ * does not admit the file; admission and window expiration still create
+ * their tasks. Since trace is replayed at high rate, events are not logged one
+ * by one; replay prints summary at the end.
+ *
+ * @author jsrudani
+ *
+ */
+public class PrimitiveReplay implements Runnable {
+
+    private final EventLog log;
+    private final Cache cache;
+    /**
+     * It represents the inode of every file of log indexed by file id. Entry
+     * is null till file is created.
+     */
+    private final Inode[] inodeTable;
+    private long openCount;
+    private long invalidOpenCount;
+
+    public PrimitiveReplay(EventLog log, Cache cache) {
+        this.log = log;
+        this.cache = cache;
+        this.inodeTable = new Inode[log.getFileCount()];
+        // Files restored from snapshot or preloaded are already created and
+        // their create in log is skipped
+        for (int fileId = 0; fileId < inodeTable.length; fileId++) {
+            inodeTable[fileId] = FileOperation.getFileToInodeMap().get(log.getPath(fileId));
+        }
+    }
+
+    /**
+     * It starts the replay on new thread.
+     *
+     * @return Thread replaying the log
+     */
+    public Thread start() {
+        Thread replayThread = new Thread(this, "lpf-primitive-replay");
+        replayThread.start();
+        return replayThread;
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.nanoTime();
+        long dueTime = startTime;
+        try {
+            for (int batch = 0; batch < log.getBatchCount(); batch++) {
+                dueTime += TimeUnit.MILLISECONDS.toNanos(log.getBatchDelay(batch));
+                long waitTime;
+                while ((waitTime = dueTime - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(waitTime);
+                }
+                runBatch(log.getBatchStart(batch), log.getBatchEnd(batch));
+            }
+        } catch (Exception ex) {
+            System.out.println("Problem in executing transaction " + ex.getMessage());
+        }
+        System.out.println("Primitive replay finished in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms, batches " + log.getBatchCount() + ", opens " + openCount + ", opens of files not created " + invalidOpenCount);
+    }
+
+    private void runBatch(int start, int end)
+            throws Exception {
+        for (int event = start; event < end; event++) {
+            int fileId = log.getFileId(event);
+            switch (log.getOpcode(event)) {
+                case EventLog.OPCODE_OPEN:
+                    Inode file = inodeTable[fileId];
+                    if (file != null) {
+                        cache.read(file);
+                        openCount++;
+                    } else {
+                        invalidOpenCount++;
+                    }
+                    break;
+                case EventLog.OPCODE_CREATE:
+                    if (inodeTable[fileId] != null) {
+                        break;
+                    }
+                    String argument = log.getArgument(event);
+                    inodeTable[fileId] = (argument == null) ? FileOperation.create(log.getPath(fileId)) : FileOperation.create(log.getPath(fileId), argument);
+                    cache.onCreate(inodeTable[fileId]);
+                    break;
+                default:
+                    System.out.println("Unknown File operation");
+                    break;
+            }
+        }
+    }
+
+    public long getOpenCount() {
+        return openCount;
+    }
+
+    public long getInvalidOpenCount() {
+        return invalidOpenCount;
+    }
+}
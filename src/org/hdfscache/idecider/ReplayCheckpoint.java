@@ -0,0 +1,194 @@
+package org.hdfscache.idecider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * This class represents the checkpoint of trace replay. It holds the position
+ * of next batch to be replayed, the cache statistics (request, byte, ghost and
+ * cost counters) and the snapshot of cache and inode state. Cached bytes are
+ * not saved since they are rebuilt from restored cached files. Since snapshot keeps window start and window size of every
+ * cached file, pending window expiration of each file is rescheduled with its
+ * remaining time on resume.
+ *
+ * Layout of checkpoint is [Magic Version TotalBatch NextBatch Hit Miss
+ * TotalRequest ByteHit ByteMiss GhostHit GhostReadmission MissCost CostSaved]
+ * followed by the cache snapshot.
+ *
+ * @author jsrudani
+ *
+ */
+public class ReplayCheckpoint {
+
+    /**
+     * It is used to identify checkpoint file. It is "LPFC" in ASCII.
+     */
+    private static final int CHECKPOINT_MAGIC = 0x4C504643;
+    /**
+     * It represents the version of checkpoint layout.
+     */
+    private static final int CHECKPOINT_VERSION = 2;
+    /**
+     * It represents the size of checkpoint header in bytes.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8 + 8 + 8 + 8 + 8 + 8 + 8 + 8;
+
+    /**
+     * This represents total number of batches in trace. It is used to check
+     * that checkpoint is resumed against same trace.
+     */
+    private final int totalBatch;
+    /**
+     * This represents index of the next batch which is not yet replayed.
+     */
+    private final int nextBatch;
+    private final long cacheHit;
+    private final long cacheMiss;
+    private final long cacheTotalRequest;
+    private final long cacheByteHit;
+    private final long cacheByteMiss;
+    private final long cacheGhostHit;
+    private final long cacheGhostReadmission;
+    private final double cacheMissCost;
+    private final double cacheCostSaved;
+    private final CacheSnapshot snapshot;
+
+    private ReplayCheckpoint(int totalBatch, int nextBatch, long cacheHit, long cacheMiss, long cacheTotalRequest, long cacheByteHit, long cacheByteMiss, long cacheGhostHit, long cacheGhostReadmission, double cacheMissCost, double cacheCostSaved, CacheSnapshot snapshot) {
+        this.totalBatch = totalBatch;
+        this.nextBatch = nextBatch;
+        this.cacheHit = cacheHit;
+        this.cacheMiss = cacheMiss;
+        this.cacheTotalRequest = cacheTotalRequest;
+        this.cacheByteHit = cacheByteHit;
+        this.cacheByteMiss = cacheByteMiss;
+        this.cacheGhostHit = cacheGhostHit;
+        this.cacheGhostReadmission = cacheGhostReadmission;
+        this.cacheMissCost = cacheMissCost;
+        this.cacheCostSaved = cacheCostSaved;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * It captures checkpoint after given number of batches are replayed. It
+     * should be called from replay thread between two batches, after pending
+     * admissions of cache are finished, so that trace position and inode
+     * state are consistent.
+     *
+     * @param cache
+     * @param totalBatch
+     * @param nextBatch
+     * @return ReplayCheckpoint
+     */
+    public static ReplayCheckpoint capture(LPFCache cache, int totalBatch, int nextBatch) {
+        return new ReplayCheckpoint(totalBatch, nextBatch, cache.getLPF_CACHE_HIT().get(), cache.getLPF_CACHE_MISS().get(), cache.getLPF_CACHE_TOTAL_REQUEST().get(), cache.getLPF_CACHE_BYTE_HIT().get(), cache.getLPF_CACHE_BYTE_MISS().get(), cache.getLPF_CACHE_GHOST_HIT().get(), cache.getLPF_CACHE_GHOST_READMISSION().get(), cache.getLPF_CACHE_MISS_COST(), cache.getLPF_CACHE_COST_SAVED(), CacheSnapshot.capture(cache));
+    }
+
+    /**
+     * It restores cache statistics, inodes and cache content from checkpoint.
+     *
+     * @param cache
+     * @param totalBatch
+     *            Total number of batches in trace which is going to be resumed
+     */
+    public void restore(LPFCache cache, int totalBatch) {
+        if (this.totalBatch != totalBatch) {
+            throw new IllegalArgumentException("Checkpoint was taken for trace with " + this.totalBatch + " batches but trace has " + totalBatch + " batches");
+        }
+        cache.getLPF_CACHE_HIT().set(cacheHit);
+        cache.getLPF_CACHE_MISS().set(cacheMiss);
+        cache.getLPF_CACHE_TOTAL_REQUEST().set(cacheTotalRequest);
+        cache.getLPF_CACHE_BYTE_HIT().set(cacheByteHit);
+        cache.getLPF_CACHE_BYTE_MISS().set(cacheByteMiss);
+        cache.getLPF_CACHE_GHOST_HIT().set(cacheGhostHit);
+        cache.getLPF_CACHE_GHOST_READMISSION().set(cacheGhostReadmission);
+        cache.restoreCostStatistics(cacheMissCost, cacheCostSaved);
+        snapshot.restore(cache);
+        System.out.println("Resuming replay from batch " + nextBatch + " of " + totalBatch);
+    }
+
+    /**
+     * It writes the checkpoint to given file through memory mapped buffer.
+     * Checkpoint is first written to temporary file and then moved so the
+     * previous checkpoint is never left half written.
+     *
+     * @param filename
+     * @throws IOException
+     */
+    public void save(String filename)
+            throws IOException {
+        File target = new File(filename);
+        File temp = new File(filename + ".tmp");
+        long size = HEADER_SIZE + snapshot.encodedSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Checkpoint of " + size + " bytes can not be mapped");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+                FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(CHECKPOINT_MAGIC);
+            buffer.putInt(CHECKPOINT_VERSION);
+            buffer.putInt(totalBatch);
+            buffer.putInt(nextBatch);
+            buffer.putLong(cacheHit);
+            buffer.putLong(cacheMiss);
+            buffer.putLong(cacheTotalRequest);
+            buffer.putLong(cacheByteHit);
+            buffer.putLong(cacheByteMiss);
+            buffer.putLong(cacheGhostHit);
+            buffer.putLong(cacheGhostReadmission);
+            buffer.putDouble(cacheMissCost);
+            buffer.putDouble(cacheCostSaved);
+            snapshot.writeTo(buffer);
+            buffer.force();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * It reads the checkpoint from given file through memory mapped buffer.
+     *
+     * @param filename
+     * @return ReplayCheckpoint
+     * @throws IOException
+     */
+    public static ReplayCheckpoint load(String filename)
+            throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filename, "r");
+                FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Not a valid replay checkpoint");
+            }
+            int version = buffer.getInt();
+            if (version != CHECKPOINT_VERSION) {
+                throw new IOException("Unsupported replay checkpoint version " + version);
+            }
+            int totalBatch = buffer.getInt();
+            int nextBatch = buffer.getInt();
+            long cacheHit = buffer.getLong();
+            long cacheMiss = buffer.getLong();
+            long cacheTotalRequest = buffer.getLong();
+            long cacheByteHit = buffer.getLong();
+            long cacheByteMiss = buffer.getLong();
+            long cacheGhostHit = buffer.getLong();
+            long cacheGhostReadmission = buffer.getLong();
+            double cacheMissCost = buffer.getDouble();
+            double cacheCostSaved = buffer.getDouble();
+            return new ReplayCheckpoint(totalBatch, nextBatch, cacheHit, cacheMiss, cacheTotalRequest, cacheByteHit, cacheByteMiss, cacheGhostHit, cacheGhostReadmission, cacheMissCost, cacheCostSaved, CacheSnapshot.readFrom(buffer));
+        }
+    }
+
+    public int getNextBatch() {
+        return nextBatch;
+    }
+
+    public int getTotalBatch() {
+        return totalBatch;
+    }
+}
@@ -1,43 +1,106 @@
 package org.hdfscache.idecider;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 
 /**
  * This class is used to schedule the transaction batched as per arrival time.
- * 
+ * Optionally it takes checkpoint of replay after every few batches so that
+ * replay can be resumed from the latest checkpoint.
+ *
  * @author jsrudani
- * 
+ *
  */
 public class ReplayTraces {
 
     private final List<LPFEntry<Long, TimerTask>> batchedTransactionPerTimestamp;
     private Timer startJobTimer;
+    /**
+     * It represents the index of the first batch to be replayed. It is non
+     * zero when replay is resumed from checkpoint.
+     */
+    private final int startBatch;
+    /**
+     * It represents the cache whose state is checkpointed. It is null when
+     * checkpoint is not requested.
+     */
+    private final LPFCache checkpointCache;
+    /**
+     * It represents the file where checkpoint is written.
+     */
+    private final String checkpointFile;
 
     public ReplayTraces(
             List<LPFEntry<Long, TimerTask>> batchedTransactionPerTimestamp) {
+        this(batchedTransactionPerTimestamp, 0, null, null);
+    }
+
+    public ReplayTraces(
+            List<LPFEntry<Long, TimerTask>> batchedTransactionPerTimestamp,
+            int startBatch, LPFCache checkpointCache, String checkpointFile) {
         this.batchedTransactionPerTimestamp = batchedTransactionPerTimestamp;
+        this.startBatch = startBatch;
+        this.checkpointCache = checkpointCache;
+        this.checkpointFile = checkpointFile;
         startJobTimer = new Timer();
     }
 
     /**
-     * It is used to schedule the batch as per its arrival time.
-     * 
+     * It is used to schedule the batch as per its arrival time. When replay is
+     * resumed, the first pending batch is scheduled immediately and rest of
+     * the batches keep their original inter arrival time.
+     *
      * @throws Exception
      */
     public void runTransactionAsPerArrivalTime() {
         try {
-            Iterator<LPFEntry<Long, TimerTask>> startJobPerTimestampItr = batchedTransactionPerTimestamp.iterator();
             long startTime = 0L;
-            while (startJobPerTimestampItr.hasNext()) {
-                LPFEntry<Long, TimerTask> batchEntry = startJobPerTimestampItr.next();
-                startTime += batchEntry.getKey();
-                startJobTimer.schedule(batchEntry.getValue(), startTime);
+            for (int batch = startBatch; batch < batchedTransactionPerTimestamp.size(); batch++) {
+                LPFEntry<Long, TimerTask> batchEntry = batchedTransactionPerTimestamp.get(batch);
+                if (batch > startBatch) {
+                    startTime += batchEntry.getKey();
+                }
+                startJobTimer.schedule(new ReplayBatchTask(batch, batchEntry.getValue()), startTime);
             }
         } catch (Exception ex) {
             System.out.println("Problem in executing transaction " + ex.getMessage());
         }
     }
+
+    /**
+     * This class runs one batch of transaction and takes checkpoint once
+     * configured number of batches are replayed. Since Timer runs all the
+     * batches on single thread, checkpoint is always taken between two
+     * batches.
+     *
+     * @author jsrudani
+     *
+     */
+    class ReplayBatchTask extends TimerTask {
+
+        private final int batch;
+        private final TimerTask transactionTask;
+
+        ReplayBatchTask(int batch, TimerTask transactionTask) {
+            this.batch = batch;
+            this.transactionTask = transactionTask;
+        }
+
+        @Override
+        public void run() {
+            transactionTask.run();
+            int nextBatch = batch + 1;
+            if (checkpointCache != null && (nextBatch % LPFConstant.CHECKPOINT_INTERVAL_BATCH == 0 || nextBatch == batchedTransactionPerTimestamp.size())) {
+                try {
+                    // Admissions of this batch run on cache executor, wait
+                    // for them so checkpoint holds the state after the batch
+                    checkpointCache.awaitPendingAdmissions();
+                    ReplayCheckpoint.capture(checkpointCache, batchedTransactionPerTimestamp.size(), nextBatch).save(checkpointFile);
+                } catch (Exception ex) {
+                    System.out.println("Problem in writing checkpoint " + ex.getMessage());
+                }
+            }
+        }
+    }
 }
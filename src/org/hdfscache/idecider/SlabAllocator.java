@@ -0,0 +1,114 @@
+package org.hdfscache.idecider;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class allocates fixed size slabs from off-heap arena. Arena is divided
+ * into equal slabs and is made of one or more direct ByteBuffers (chunks)
+ * since single buffer can not hold more than 2 GB. Offset of slab in arena is
+ * computed as long. Free slabs are kept in a stack of slab index so allocation
+ * and release do not create any garbage.
+ *
+ * @author jsrudani
+ *
+ */
+public class SlabAllocator {
+
+    /**
+     * It represents the largest chunk of arena in bytes.
+     */
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+
+    private final ByteBuffer[] chunks;
+    private final int slabsPerChunk;
+    private final int slabSize;
+    private final int[] freeSlabs;
+    private int freeSlabCount;
+
+    public SlabAllocator(int slabSize, int slabCount) {
+        if (slabSize <= 0 || slabCount <= 0) {
+            throw new IllegalArgumentException("Slab size and slab count should be positive");
+        }
+        this.slabSize = slabSize;
+        this.slabsPerChunk = (int) Math.min(slabCount, MAX_CHUNK_SIZE / slabSize);
+        this.chunks = new ByteBuffer[(slabCount + slabsPerChunk - 1) / slabsPerChunk];
+        for (int i = 0; i < chunks.length; i++) {
+            int chunkSlabs = Math.min(slabsPerChunk, slabCount - (i * slabsPerChunk));
+            chunks[i] = ByteBuffer.allocateDirect(chunkSlabs * slabSize);
+        }
+        this.freeSlabs = new int[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            freeSlabs[i] = slabCount - 1 - i;
+        }
+        this.freeSlabCount = slabCount;
+    }
+
+    /**
+     * It allocates the slabs required to hold given number of bytes.
+     *
+     * @param bytes
+     * @return slab index or null if there are not enough free slabs
+     */
+    public synchronized int[] allocate(long bytes) {
+        long required = slabsRequired(bytes);
+        if (required > freeSlabCount) {
+            return null;
+        }
+        int[] slabs = new int[(int) required];
+        for (int i = 0; i < slabs.length; i++) {
+            slabs[i] = freeSlabs[--freeSlabCount];
+        }
+        return slabs;
+    }
+
+    /**
+     * It returns the slabs to the arena.
+     *
+     * @param slabs
+     */
+    public synchronized void free(int[] slabs) {
+        for (int slab : slabs) {
+            freeSlabs[freeSlabCount++] = slab;
+        }
+    }
+
+    /**
+     * It returns the view of slab limited to given length. View shares the
+     * memory of arena.
+     *
+     * @param slab
+     * @param length
+     * @return ByteBuffer
+     */
+    public ByteBuffer slice(int slab, int length) {
+        ByteBuffer view = chunks[slab / slabsPerChunk].duplicate();
+        // Offset within chunk is less than chunk size which fits in int
+        int offset = (int) (((long) (slab % slabsPerChunk)) * slabSize);
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+
+    public long slabsRequired(long bytes) {
+        return (bytes + slabSize - 1) / slabSize;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * It returns the size of arena in bytes.
+     */
+    public long getArenaSize() {
+        return ((long) slabSize) * freeSlabs.length;
+    }
+
+    public synchronized int getFreeSlabCount() {
+        return freeSlabCount;
+    }
+
+    public int getSlabCount() {
+        return freeSlabs.length;
+    }
+}
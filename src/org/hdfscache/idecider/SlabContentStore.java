@@ -0,0 +1,184 @@
+package org.hdfscache.idecider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds content of cached files in off-heap slabs. Content is
+ * loaded from FileContentSource when file is admitted to cache and slabs are
+ * freed when file is removed from cache. Reader gets read-only views of slabs
+ * so content is never copied. Views are handed out as Content which holds a
+ * reference on slabs, so slabs of removed file are freed only after every
+ * reader has closed its Content and reader never sees reused slab.
+ *
+ * @author jsrudani
+ *
+ */
+public class SlabContentStore implements CacheEvictionListener {
+
+    private final FileContentSource contentSource;
+    private final SlabAllocator allocator;
+    /**
+     * This represents the mapping of inode id -> slabs holding its content.
+     */
+    private final Map<Long, SlabEntry> contentMap = new ConcurrentHashMap<Long, SlabEntry>();
+
+    public SlabContentStore(FileContentSource contentSource, SlabAllocator allocator) {
+        this.contentSource = contentSource;
+        this.allocator = allocator;
+    }
+
+    /**
+     * It loads the content of file into slabs. If arena does not have enough
+     * free slabs then content is not loaded.
+     *
+     * @param file
+     * @return true if content is loaded
+     * @throws IOException
+     */
+    public boolean load(Inode file) throws IOException {
+        if (contentMap.containsKey(file.getInodeId())) {
+            return true;
+        }
+        long size = contentSource.getSize(file);
+        int[] slabs = allocator.allocate(size);
+        if (slabs == null) {
+            System.out.println("Not enough slabs to load file -> " + file.getInodeId() + " of size " + size);
+            return false;
+        }
+        try {
+            contentSource.load(file, slices(slabs, size));
+        } catch (IOException ex) {
+            allocator.free(slabs);
+            throw ex;
+        }
+        contentMap.put(file.getInodeId(), new SlabEntry(slabs, size));
+        return true;
+    }
+
+    /**
+     * It returns read-only views of content of file in order. Caller must
+     * close the content once it is done with views.
+     *
+     * @param file
+     * @return Content or null if content is not present
+     */
+    public Content getContent(Inode file) {
+        SlabEntry entry = contentMap.get(file.getInodeId());
+        if (entry == null || !entry.retain()) {
+            return null;
+        }
+        ByteBuffer[] views = slices(entry.slabs, entry.size);
+        for (int i = 0; i < views.length; i++) {
+            views[i] = views[i].asReadOnlyBuffer();
+        }
+        return new Content(entry, views);
+    }
+
+    /**
+     * It drops the content of file. Slabs are freed once no reader holds
+     * the content.
+     *
+     * @param file
+     */
+    public void free(Inode file) {
+        SlabEntry entry = contentMap.remove(file.getInodeId());
+        if (entry != null) {
+            entry.release();
+        }
+    }
+
+    @Override
+    public void onEviction(Inode file) {
+        free(file);
+    }
+
+    private ByteBuffer[] slices(int[] slabs, long size) {
+        ByteBuffer[] buffers = new ByteBuffer[slabs.length];
+        long remaining = size;
+        for (int i = 0; i < slabs.length; i++) {
+            int length = (int) Math.min(remaining, allocator.getSlabSize());
+            buffers[i] = allocator.slice(slabs[i], length);
+            remaining -= length;
+        }
+        return buffers;
+    }
+
+    public SlabAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * This class represents slabs holding content of one file. Store holds
+     * one reference till file is removed and every open Content holds one.
+     *
+     * @author jsrudani
+     *
+     */
+    class SlabEntry {
+        private final int[] slabs;
+        private final long size;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        SlabEntry(int[] slabs, long size) {
+            this.slabs = slabs;
+            this.size = size;
+        }
+
+        /**
+         * It takes reference on slabs unless they are already freed.
+         *
+         * @return false if slabs are freed
+         */
+        boolean retain() {
+            while (true) {
+                int current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                allocator.free(slabs);
+            }
+        }
+    }
+
+    /**
+     * This class holds read-only views of content of one file. Views stay
+     * valid till it is closed even if file is removed from cache meanwhile.
+     *
+     * @author jsrudani
+     *
+     */
+    public static class Content implements AutoCloseable {
+        private final SlabEntry entry;
+        private final ByteBuffer[] buffers;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        Content(SlabEntry entry, ByteBuffer[] buffers) {
+            this.entry = entry;
+            this.buffers = buffers;
+        }
+
+        public ByteBuffer[] getBuffers() {
+            return buffers;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                entry.release();
+            }
+        }
+    }
+}
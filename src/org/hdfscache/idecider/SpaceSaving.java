@@ -0,0 +1,132 @@
+package org.hdfscache.idecider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class finds the most frequent items of a stream with fixed number of
+ * counters (Space Saving algorithm). When new item arrives and all counters
+ * are in use, the counter with least count is given to new item and new item
+ * inherits that count as its error. Any item whose frequency is more than
+ * N/capacity is guaranteed to be tracked. Counters are kept in binary min heap
+ * so least counter is found in constant time.
+ *
+ * @author jsrudani
+ *
+ */
+public class SpaceSaving {
+
+    private final String[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> heapPosition;
+    private int size = 0;
+
+    public SpaceSaving(int capacity) {
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heapPosition = new HashMap<String, Integer>(capacity * 2);
+    }
+
+    /**
+     * It counts one occurrence of item.
+     *
+     * @param item
+     */
+    public void add(String item) {
+        Integer position = heapPosition.get(item);
+        if (position == null) {
+            if (size < items.length) {
+                position = size++;
+                errors[position] = 0;
+                counts[position] = 0;
+            } else {
+                // Replace the least frequent item which is at root
+                position = 0;
+                heapPosition.remove(items[position]);
+                errors[position] = counts[position];
+            }
+            items[position] = item;
+            heapPosition.put(item, position);
+        }
+        counts[position]++;
+        // Appended counter starts at leaf and may be less than its parent.
+        // Count only grows afterwards so it can only move down.
+        siftDown(siftUp(position));
+    }
+
+    /**
+     * It returns tracked items ordered by count, most frequent first.
+     *
+     * @param k
+     *            Maximum number of items returned
+     * @return List of top items
+     */
+    public List<FrequentItem> top(int k) {
+        List<FrequentItem> result = new ArrayList<FrequentItem>(Math.min(k, size));
+        boolean[] selected = new boolean[size];
+        while (result.size() < Math.min(k, size)) {
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                if (!selected[i] && (best < 0 || counts[i] > counts[best])) {
+                    best = i;
+                }
+            }
+            selected[best] = true;
+            result.add(new FrequentItem(items[best], counts[best], errors[best]));
+        }
+        return result;
+    }
+
+    private int siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+        return position;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        long error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        heapPosition.put(items[i], i);
+        heapPosition.put(items[j], j);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,172 @@
+package org.hdfscache.idecider;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class implements two tier cache. Memory tier is LPF cache and disk tier
+ * holds the files which are removed from memory tier. Whenever LPF cache
+ * removes a file, it is demoted to disk tier. File in disk tier keeps gaining
+ * access count and once it crosses the popularity threshold, LPF cache admits
+ * it again and file is promoted back to memory tier. When disk tier is full,
+ * file which was least popular at demotion is removed from it.
+ *
+ * Disk tier is simulated. It only keeps track of which files are present.
+ *
+ * @author jsrudani
+ *
+ */
+public class TieredLPFCache implements Cache, CacheEvictionListener, CacheStatistics {
+
+    private final LPFCache memoryTier;
+    private final DiskTier diskTier = new DiskTier(LPFConstant.DISK_TIER_TOTAL_CACHE_ENTRY);
+    private final AtomicLong memoryHit = new AtomicLong(0);
+    private final AtomicLong diskHit = new AtomicLong(0);
+    private final AtomicLong cacheMiss = new AtomicLong(0);
+    private final AtomicLong totalRequest = new AtomicLong(0);
+    /**
+     * This represents number of files moved from disk tier to memory tier.
+     */
+    private final AtomicLong promotion = new AtomicLong(0);
+    /**
+     * This represents number of files moved from memory tier to disk tier.
+     */
+    private final AtomicLong demotion = new AtomicLong(0);
+    /**
+     * This represents number of files removed from disk tier.
+     */
+    private final AtomicLong diskEviction = new AtomicLong(0);
+
+    public TieredLPFCache(LPFCache memoryTier) {
+        this.memoryTier = memoryTier;
+        memoryTier.addEvictionListener(this);
+    }
+
+    @Override
+    public void read(Inode file) {
+        synchronized (file) {
+            totalRequest.incrementAndGet();
+            boolean inDiskTier = false;
+            if (file.isCached()) {
+                memoryHit.incrementAndGet();
+            } else if (diskTier.contains(file)) {
+                diskHit.incrementAndGet();
+                inDiskTier = true;
+            } else {
+                cacheMiss.incrementAndGet();
+            }
+            // LPF cache decides whether file is popular enough for memory tier
+            memoryTier.read(file);
+            if (inDiskTier && file.isCached() && diskTier.remove(file)) {
+                promotion.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void onEviction(Inode file) {
+        demotion.incrementAndGet();
+        if (diskTier.add(file)) {
+            diskEviction.incrementAndGet();
+        }
+    }
+
+    /**
+     * It returns the statistics of both tiers in the form
+     * [Request,MemoryHit,DiskHit,Miss,MemoryHitRatio,DiskHitRatio,Promotion,Demotion,DiskEviction]
+     */
+    @Override
+    public String getStatistics() {
+        float request = Math.max(1L, totalRequest.get());
+        return "[" + totalRequest.get() + "," + memoryHit.get() + "," + diskHit.get() + "," + cacheMiss.get() + "," + (memoryHit.get() / request) + "," + (diskHit.get() / request) + "," + promotion.get() + "," + demotion.get() + "," + diskEviction.get() + "]";
+    }
+
+    public AtomicLong getMemoryHit() {
+        return memoryHit;
+    }
+
+    public AtomicLong getDiskHit() {
+        return diskHit;
+    }
+
+    public AtomicLong getCacheMiss() {
+        return cacheMiss;
+    }
+
+    public AtomicLong getPromotion() {
+        return promotion;
+    }
+
+    public AtomicLong getDemotion() {
+        return demotion;
+    }
+
+    public AtomicLong getDiskEviction() {
+        return diskEviction;
+    }
+
+    /**
+     * This class represents disk tier. Files are ordered on the popularity they
+     * had when they were demoted.
+     *
+     * @author jsrudani
+     *
+     */
+    static class DiskTier {
+
+        private final long capacity;
+        private final Map<Inode, Float> demotedPopularity = new HashMap<Inode, Float>();
+        private final TreeSet<Inode> popularityOrderedFiles = new TreeSet<Inode>(new Comparator<Inode>() {
+            @Override
+            public int compare(Inode o1, Inode o2) {
+                if (o1.equals(o2)) {
+                    return 0;
+                }
+                int result = Float.compare(demotedPopularity.get(o1), demotedPopularity.get(o2));
+                return (result != 0) ? result : (o1.getInodeId() < o2.getInodeId() ? -1 : 1);
+            }
+        });
+
+        DiskTier(long capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized boolean contains(Inode file) {
+            return demotedPopularity.containsKey(file);
+        }
+
+        /**
+         * It adds the file to disk tier. If disk tier is full then least
+         * popular file is removed.
+         *
+         * @param file
+         * @return true if a file is removed to make room
+         */
+        synchronized boolean add(Inode file) {
+            if (demotedPopularity.containsKey(file)) {
+                return false;
+            }
+            boolean evicted = false;
+            if (demotedPopularity.size() >= capacity) {
+                Inode leastPopularFile = popularityOrderedFiles.pollFirst();
+                demotedPopularity.remove(leastPopularFile);
+                evicted = true;
+            }
+            demotedPopularity.put(file, file.getPopularity());
+            popularityOrderedFiles.add(file);
+            return evicted;
+        }
+
+        synchronized boolean remove(Inode file) {
+            if (!demotedPopularity.containsKey(file)) {
+                return false;
+            }
+            popularityOrderedFiles.remove(file);
+            demotedPopularity.remove(file);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.hdfscache.idecider;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * This class profiles the trace file in single pass. Unlike Preprocessing it
+ * does not keep the trace in memory, every structure has fixed size so it can
+ * run over trace of any length. It reports
+ *
+ * 1. Distinct files read in each time window (HyperLogLog) and in whole trace
+ * 2. Most frequently read files (Space Saving)
+ * 3. Zipf exponent fitted on frequency of most read files
+ * 4. Histogram of time between two reads (inter-arrival time)
+ * 5. Histogram of time between two reads of same file (reuse time)
+ * 6. Histogram of time between create of file and its first read
+ *
+ * Reuse time and create to first read delay need last time of each file. It
+ * is kept in fixed table indexed by hash of file name. If two files share a
+ * slot, the older one is forgotten and its next read is counted as untracked.
+ *
+ * @author jsrudani
+ *
+ */
+public class TraceAnalyzer {
+
+    private final String fileName;
+    private final long windowSize;
+    private final HyperLogLog windowDistinctFile = new HyperLogLog(LPFConstant.ANALYZER_HLL_PRECISION);
+    private final HyperLogLog totalDistinctFile = new HyperLogLog(LPFConstant.ANALYZER_HLL_PRECISION);
+    private final SpaceSaving hotFiles = new SpaceSaving(LPFConstant.ANALYZER_TOP_K_CAPACITY);
+    private final Histogram interArrivalTime = new Histogram();
+    private final Histogram reuseTime = new Histogram();
+    private final Histogram createToFirstOpenTime = new Histogram();
+    /**
+     * These represent the table of files indexed by hash. Fingerprint tells
+     * which file owns the slot. Time is -1 when it is not known.
+     */
+    private final long[] slotFingerprint = new long[LPFConstant.ANALYZER_TABLE_SIZE];
+    private final long[] slotLastOpenTime = new long[LPFConstant.ANALYZER_TABLE_SIZE];
+    private final long[] slotCreateTime = new long[LPFConstant.ANALYZER_TABLE_SIZE];
+    private long windowStart = -1;
+    private long windowOpen = 0;
+    private long windowIndex = 0;
+    private long lastOpenTime = -1;
+    private long totalOpen = 0;
+    private long totalCreate = 0;
+    private long untrackedReuse = 0;
+    private long firstTimestamp = -1;
+    private long lastTimestamp = -1;
+
+    public TraceAnalyzer(String fileName, long windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size should be positive " + windowSize);
+        }
+        this.fileName = fileName;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * It reads the trace line by line and updates the profile.
+     *
+     * @throws IOException
+     */
+    public void analyze() throws IOException {
+        System.out.println("Analyzing file :" + fileName);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Less number of fields in File");
+                }
+                processOperation(Long.parseLong(fields[0]), fields[1], fields[2]);
+            }
+        }
+        closeWindow();
+        report();
+    }
+
+    private void processOperation(long timestamp, String filename, String operation) {
+        if (firstTimestamp < 0) {
+            firstTimestamp = timestamp;
+        }
+        lastTimestamp = timestamp;
+        long hash = FnvHash.hash(filename);
+        int slot = (int) (hash & (LPFConstant.ANALYZER_TABLE_SIZE - 1));
+        // Fingerprint 0 marks empty slot
+        long fingerprint = hash | 1L;
+        if (slotFingerprint[slot] != fingerprint) {
+            slotFingerprint[slot] = fingerprint;
+            slotLastOpenTime[slot] = -1;
+            slotCreateTime[slot] = -1;
+        }
+        if (LPFConstant.FILE_CREATE.equals(operation)) {
+            totalCreate++;
+            slotCreateTime[slot] = timestamp;
+        } else if (LPFConstant.FILE_OPEN.equals(operation)) {
+            if (windowStart < 0) {
+                windowStart = timestamp;
+            }
+            if (timestamp - windowStart >= windowSize) {
+                closeWindow();
+                // Jump straight to window of timestamp. Windows in between
+                // had no read and are reported as one record.
+                long elapsedWindow = (timestamp - windowStart) / windowSize;
+                if (elapsedWindow > 1) {
+                    System.out.println("Windows " + windowIndex + " to " + (windowIndex + elapsedWindow - 2) + " [" + (windowStart + windowSize) + "] reads 0");
+                    windowIndex += elapsedWindow - 1;
+                }
+                windowStart += elapsedWindow * windowSize;
+            }
+            totalOpen++;
+            windowOpen++;
+            windowDistinctFile.add(hash);
+            totalDistinctFile.add(hash);
+            hotFiles.add(filename);
+            if (lastOpenTime >= 0) {
+                interArrivalTime.add(timestamp - lastOpenTime);
+            }
+            lastOpenTime = timestamp;
+            if (slotLastOpenTime[slot] >= 0) {
+                reuseTime.add(timestamp - slotLastOpenTime[slot]);
+            } else if (slotCreateTime[slot] >= 0) {
+                createToFirstOpenTime.add(timestamp - slotCreateTime[slot]);
+            } else {
+                untrackedReuse++;
+            }
+            slotLastOpenTime[slot] = timestamp;
+        }
+    }
+
+    /**
+     * It reports distinct files of current window and starts next window.
+     * Empty window is not reported.
+     */
+    private void closeWindow() {
+        if (windowOpen > 0) {
+            System.out.println("Window " + windowIndex + " [" + windowStart + "] reads " + windowOpen + ", distinct files " + windowDistinctFile.cardinality());
+        }
+        windowIndex++;
+        windowOpen = 0;
+        windowDistinctFile.clear();
+    }
+
+    private void report() {
+        System.out.println("Duration " + (lastTimestamp - firstTimestamp) + " ms, creates " + totalCreate + ", reads " + totalOpen + ", distinct files read " + totalDistinctFile.cardinality());
+        System.out.println("Top " + LPFConstant.ANALYZER_TOP_K_REPORT + " files [File,Count,Error]");
+        for (FrequentItem entry : hotFiles.top(LPFConstant.ANALYZER_TOP_K_REPORT)) {
+            System.out.println("  " + entry);
+        }
+        System.out.println("Zipf exponent " + estimateZipfExponent());
+        System.out.println("Inter-arrival time " + interArrivalTime);
+        System.out.println("Reuse time " + reuseTime);
+        System.out.println("Create to first read time " + createToFirstOpenTime);
+        System.out.println("Reads without known previous read or create " + untrackedReuse);
+    }
+
+    /**
+     * It fits log(Count) = c - s * log(Rank) by least squares over the most
+     * read files and returns s. Fit stops at first file whose count has
+     * error of more than 10% since tail of counters is not reliable.
+     *
+     * @return Zipf exponent or NaN if there are not enough files
+     */
+    double estimateZipfExponent() {
+        List<FrequentItem> top = hotFiles.top(hotFiles.size());
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        int points = 0;
+        for (int rank = 1; rank <= top.size(); rank++) {
+            long count = top.get(rank - 1).getCount();
+            long error = top.get(rank - 1).getError();
+            if (error * 10 > count) {
+                break;
+            }
+            double x = Math.log(rank);
+            double y = Math.log(count);
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+            points++;
+        }
+        double denominator = points * sumXX - sumX * sumX;
+        if (points < 2 || denominator == 0) {
+            return Double.NaN;
+        }
+        return -(points * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * This class counts values (in ms) in buckets of power of 2. Bucket i
+     * holds values in [2^(i-1), 2^i) and bucket 0 holds 0.
+     *
+     * @author jsrudani
+     *
+     */
+    static class Histogram {
+        private final long[] buckets = new long[LPFConstant.ANALYZER_HISTOGRAM_BUCKET_COUNT];
+        private long count = 0;
+        private long sum = 0;
+        private long max = 0;
+
+        void add(long value) {
+            value = Math.max(0L, value);
+            int bucket = Math.min(buckets.length - 1, 64 - Long.numberOfLeadingZeros(value));
+            buckets[bucket]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        /**
+         * It returns upper bound of bucket which holds given percentile.
+         */
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return (i == 0) ? 0 : Math.min(max, (1L << i) - 1);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("count " + count + ", mean " + (sum / (double) Math.max(1L, count)) + ", p50 <= " + percentile(0.5) + ", p90 <= " + percentile(0.9) + ", p99 <= " + percentile(0.99) + ", max " + max);
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    builder.append("\n    [" + ((i == 0) ? 0 : (1L << (i - 1))) + "," + ((i == 0) ? 1 : (1L << i)) + ") " + buckets[i]);
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * It runs the analyzer.
+     *
+     * @param args
+     *            [TraceFile WindowSize(ms)?]
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length < 1 || args.length > 2) {
+                throw new IllegalArgumentException("Usage: TraceAnalyzer <trace> [windowSize]");
+            }
+            long windowSize = (args.length == 2) ? Long.parseLong(args[1]) : LPFConstant.ANALYZER_WINDOW_SIZE;
+            new TraceAnalyzer(args[0], windowSize).analyze();
+        } catch (Throwable t) {
+            System.out.println(t.getMessage());
+        }
+    }
+}
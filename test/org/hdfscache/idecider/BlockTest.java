@@ -0,0 +1,49 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class tests that range read creates only the blocks it touches and
+ * that range outside the file is rejected.
+ *
+ * @author jsrudani
+ *
+ */
+public class BlockTest {
+
+    @Test
+    public void lastBlockHoldsRestOfFile() throws Exception {
+        LPFCache cache = new LPFCache();
+        Inode file = FileOperation.create("/block/sparse", String.valueOf(1000 * LPFConstant.BLOCK_SIZE + 10));
+        cache.readRange(file, 1000 * LPFConstant.BLOCK_SIZE, 10);
+        cache.readRange(file, 0, 1);
+        List<Block> blocks = file.getBlocks();
+        assertEquals(2, blocks.size());
+        assertEquals(0L, blocks.get(0).getBlockIndex());
+        assertEquals(LPFConstant.BLOCK_SIZE, blocks.get(0).getSize());
+        assertEquals(1000L, blocks.get(1).getBlockIndex());
+        assertEquals(10L, blocks.get(1).getSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeBeyondFileIsRejected() throws Exception {
+        Inode file = FileOperation.create("/block/beyond", "100");
+        new LPFCache().readRange(file, 50, 51);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hugeOffsetIsRejected() throws Exception {
+        Inode file = FileOperation.create("/block/huge", "100");
+        new LPFCache().readRange(file, Long.MAX_VALUE - 1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeOffsetIsRejected() throws Exception {
+        Inode file = FileOperation.create("/block/negative", "100");
+        new LPFCache().readRange(file, -1, 2);
+    }
+}
@@ -0,0 +1,98 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class tests framing of cache protocol. Malformed frame should be
+ * rejected without reading bytes of next frame.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheProtocolTest {
+
+    @Test
+    public void requestRoundTrip() {
+        List<String> paths = Arrays.asList("/protocol/a", "/protocol/\u00e9", "");
+        ByteBuffer buffer = CacheProtocol.encodeRequest(7, CacheProtocol.OPCODE_RECORD, paths);
+        assertEquals(buffer.remaining(), CacheProtocol.completeFrameLength(buffer));
+        CacheProtocol.Request request = CacheProtocol.decodeRequest(buffer);
+        assertEquals(7, request.getRequestId());
+        assertEquals(CacheProtocol.OPCODE_RECORD, request.getOpcode());
+        assertEquals(paths, request.getPaths());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void responseRoundTrip() {
+        byte[] results = { CacheProtocol.RESULT_HIT, CacheProtocol.RESULT_MISS, CacheProtocol.RESULT_UNKNOWN_FILE };
+        ByteBuffer buffer = CacheProtocol.encodeResponse(9, CacheProtocol.STATUS_OK, results);
+        int frameLength = CacheProtocol.completeFrameLength(buffer);
+        CacheProtocol.Response response = CacheProtocol.Response.decode(buffer);
+        assertEquals(frameLength, buffer.position());
+        assertEquals(9, response.getRequestId());
+        assertEquals(CacheProtocol.STATUS_OK, response.getStatus());
+        assertArrayEquals(results, response.getResults());
+    }
+
+    @Test
+    public void incompleteFrameIsNotReturned() {
+        ByteBuffer buffer = CacheProtocol.encodeRequest(1, CacheProtocol.OPCODE_LOOKUP, Arrays.asList("/protocol/b"));
+        buffer.limit(buffer.limit() - 1);
+        assertEquals(-1, CacheProtocol.completeFrameLength(buffer));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fileCountLargerThanFrameIsRejected() {
+        ByteBuffer buffer = CacheProtocol.encodeRequest(1, CacheProtocol.OPCODE_LOOKUP, Arrays.asList("/protocol/c"));
+        buffer.putInt(CacheProtocol.LENGTH_SIZE + 5, 1000);
+        CacheProtocol.decodeRequest(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pathLongerThanFrameIsRejected() {
+        ByteBuffer frame = CacheProtocol.encodeRequest(1, CacheProtocol.OPCODE_LOOKUP, Arrays.asList("/protocol/d"));
+        // Next frame follows in same buffer, path length should not reach it
+        ByteBuffer next = CacheProtocol.encodeRequest(2, CacheProtocol.OPCODE_LOOKUP, Arrays.asList("/protocol/e"));
+        ByteBuffer buffer = ByteBuffer.allocate(frame.remaining() + next.remaining());
+        buffer.put(frame).put(next).flip();
+        buffer.putShort(CacheProtocol.LENGTH_SIZE + CacheProtocol.HEADER_SIZE, (short) 20);
+        CacheProtocol.decodeRequest(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOpcodeIsRejected() {
+        ByteBuffer buffer = CacheProtocol.encodeRequest(1, (byte) 9, Arrays.asList("/protocol/f"));
+        CacheProtocol.decodeRequest(buffer);
+    }
+
+    @Test
+    public void partialFrameGrowsBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(CacheProtocol.HEADER_SIZE + 100).putInt(3).flip();
+        ByteBuffer compacted = CacheProtocol.compactForFrame(buffer);
+        assertEquals(CacheProtocol.LENGTH_SIZE + CacheProtocol.HEADER_SIZE + 100, compacted.capacity());
+        assertEquals(8, compacted.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hugeFrameLengthIsRejectedBeforeGrowing() {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(Integer.MAX_VALUE - CacheProtocol.LENGTH_SIZE).flip();
+        CacheProtocol.compactForFrame(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFrameLengthIsRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(CacheProtocol.LENGTH_SIZE + CacheProtocol.HEADER_SIZE);
+        buffer.putInt(CacheProtocol.HEADER_SIZE - 1).flip();
+        CacheProtocol.completeFrameLength(buffer);
+    }
+}
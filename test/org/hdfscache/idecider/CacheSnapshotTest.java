@@ -0,0 +1,155 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * This class tests that snapshot written by LPF cache restores the same files
+ * and cached state, and that restored files survive create in the trace.
+ *
+ * @author jsrudani
+ *
+ */
+public class CacheSnapshotTest {
+
+    @Test
+    public void roundTripKeepsFilesAndCachedState() throws Exception {
+        LPFCache cache = new LPFCache();
+        Inode cached = FileOperation.create("/snapshot/roundtrip/cached", "4096#3.5");
+        Inode plain = FileOperation.create("/snapshot/roundtrip/plain");
+        cache.restoreCachedFile(cached, 60000L);
+
+        CacheSnapshot snapshot = CacheSnapshot.capture(cache);
+        ByteBuffer buffer = ByteBuffer.allocate((int) snapshot.encodedSize());
+        snapshot.writeTo(buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        CacheSnapshot restored = CacheSnapshot.readFrom(buffer);
+
+        assertEquals(snapshot.getInodeCount(), restored.getInodeCount());
+        assertEquals(1, restored.getCachedFileCount());
+        assertEquals(snapshot.getSnapshotTime(), restored.getSnapshotTime());
+
+        LPFCache restoredCache = new LPFCache();
+        restored.restore(restoredCache);
+        Inode restoredFile = FileOperation.getFileToInodeMap().get(cached.getPath());
+        assertEquals(cached.getInodeId(), restoredFile.getInodeId());
+        assertEquals(4096L, restoredFile.getSize());
+        assertEquals(3.5, restoredFile.getMissCost(), 0.0);
+        assertTrue(restoredFile.isCached());
+        assertEquals(4096L, restoredCache.getCachedBytes().get());
+        assertFalse(FileOperation.getFileToInodeMap().get(plain.getPath()).isCached());
+    }
+
+    @Test
+    public void roundTripKeepsCachedBlocks() throws Exception {
+        LPFCache cache = new LPFCache();
+        Inode file = FileOperation.create("/snapshot/blocks/file", String.valueOf(3 * LPFConstant.BLOCK_SIZE));
+        Block block = file.getOrCreateBlock(2);
+        cache.restoreCachedFile(block, 60000L);
+        ByteBuffer buffer = ByteBuffer.allocate((int) CacheSnapshot.capture(cache).encodedSize());
+        CacheSnapshot.capture(cache).writeTo(buffer);
+        buffer.flip();
+
+        LPFCache restoredCache = new LPFCache();
+        CacheSnapshot.readFrom(buffer).restore(restoredCache);
+        Inode restoredFile = FileOperation.getFileToInodeMap().get(file.getPath());
+        assertEquals(1, restoredFile.getBlocks().size());
+        Block restoredBlock = restoredFile.getBlocks().get(0);
+        assertEquals(2L, restoredBlock.getBlockIndex());
+        assertEquals(block.getInodeId(), restoredBlock.getInodeId());
+        assertSame(restoredFile, restoredBlock.getFile());
+        assertTrue(restoredBlock.isCached());
+        assertEquals(LPFConstant.BLOCK_SIZE, restoredCache.getCachedBytes().get());
+    }
+
+    @Test
+    public void checkpointKeepsStatistics() throws Exception {
+        LPFCache cache = new LPFCache();
+        FileOperation.create("/snapshot/checkpoint/file");
+        cache.getLPF_CACHE_HIT().set(3);
+        cache.getLPF_CACHE_MISS().set(4);
+        cache.getLPF_CACHE_TOTAL_REQUEST().set(7);
+        cache.getLPF_CACHE_BYTE_HIT().set(300);
+        cache.getLPF_CACHE_BYTE_MISS().set(400);
+        cache.getLPF_CACHE_GHOST_HIT().set(2);
+        cache.getLPF_CACHE_GHOST_READMISSION().set(1);
+        cache.restoreCostStatistics(4.5, 2.5);
+        File checkpointFile = File.createTempFile("lpf", ".checkpoint");
+        checkpointFile.deleteOnExit();
+        ReplayCheckpoint.capture(cache, 10, 5).save(checkpointFile.getPath());
+
+        LPFCache restoredCache = new LPFCache();
+        ReplayCheckpoint checkpoint = ReplayCheckpoint.load(checkpointFile.getPath());
+        checkpoint.restore(restoredCache, 10);
+        assertEquals(5, checkpoint.getNextBatch());
+        assertEquals(cache.getCostStatistics(), restoredCache.getCostStatistics());
+        assertEquals(cache.getGhostStatistics(), restoredCache.getGhostStatistics());
+        assertEquals(300L, restoredCache.getLPF_CACHE_BYTE_HIT().get());
+        assertEquals(400L, restoredCache.getLPF_CACHE_BYTE_MISS().get());
+    }
+
+    @Test
+    public void createInTraceKeepsRestoredInode() throws Exception {
+        LPFCache cache = new LPFCache();
+        Inode file = FileOperation.create("/snapshot/recreate/file");
+        cache.restoreCachedFile(file, 60000L);
+        File snapshotFile = File.createTempFile("lpf", ".snapshot");
+        snapshotFile.deleteOnExit();
+        CacheSnapshot.capture(cache).save(snapshotFile.getPath());
+
+        LPFCache restoredCache = new LPFCache();
+        CacheSnapshot.load(snapshotFile.getPath()).restore(restoredCache);
+        Inode restored = FileOperation.getFileToInodeMap().get(file.getPath());
+        assertSame(restored, FileOperation.create(file.getPath()));
+        assertSame(restored, FileOperation.create(file.getPath(), "10"));
+        assertTrue(restored.isCached());
+        assertEquals(1, restoredCache.getCachedFiles().size());
+        assertSame(restored, restoredCache.getCachedFiles().get(0));
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void rejectsBufferWithoutSnapshot() throws Exception {
+        CacheSnapshot.readFrom(ByteBuffer.allocate(64));
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void rejectsTruncatedSnapshot() throws Exception {
+        FileOperation.create("/snapshot/truncated/file");
+        ByteBuffer buffer = encode(CacheSnapshot.capture(new LPFCache()));
+        buffer.limit(buffer.limit() - 1);
+        CacheSnapshot.readFrom(buffer);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void rejectsCorruptInodeCount() throws Exception {
+        FileOperation.create("/snapshot/corrupt/count");
+        ByteBuffer buffer = encode(CacheSnapshot.capture(new LPFCache()));
+        // Inode count follows magic, version and snapshot time
+        buffer.putInt(16, Integer.MAX_VALUE);
+        CacheSnapshot.readFrom(buffer);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void rejectsNegativePathLength() throws Exception {
+        FileOperation.create("/snapshot/corrupt/path");
+        ByteBuffer buffer = encode(CacheSnapshot.capture(new LPFCache()));
+        // Path length is the last field before path of first record
+        buffer.putInt(20 + 8 + 8 + 8 + 8 + 8 + 8 + 4 + 8 + 8 + 8 + 8 + 1, -1);
+        CacheSnapshot.readFrom(buffer);
+    }
+
+    private static ByteBuffer encode(CacheSnapshot snapshot) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) snapshot.encodedSize());
+        snapshot.writeTo(buffer);
+        buffer.flip();
+        return buffer;
+    }
+}
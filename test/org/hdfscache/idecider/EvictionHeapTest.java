@@ -0,0 +1,96 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * This class tests that eviction heap always returns the file with least key
+ * while files are added, updated and removed.
+ *
+ * @author jsrudani
+ *
+ */
+public class EvictionHeapTest {
+
+    private static Inode file(long inodeId) {
+        return new Inode(inodeId, "/heap/" + inodeId, 0L, 0L, 0L, false, 10L, 0.0f, 0L, 0L);
+    }
+
+    @Test
+    public void pollReturnsFilesInKeyOrder() {
+        EvictionHeap heap = new EvictionHeap(4, 2);
+        double[] keys = { 5.0, 1.0, 4.0, 2.0, 3.0 };
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(heap.add(file(i), keys[i]));
+        }
+        assertEquals(5, heap.size());
+        assertEquals(1L, heap.poll().getInodeId());
+        assertEquals(3L, heap.poll().getInodeId());
+        assertEquals(4L, heap.poll().getInodeId());
+        assertEquals(2L, heap.poll().getInodeId());
+        assertEquals(0L, heap.poll().getInodeId());
+        assertNull(heap.poll());
+    }
+
+    @Test
+    public void handleFollowsFile() {
+        EvictionHeap heap = new EvictionHeap(2, 4);
+        Inode file = file(1);
+        assertFalse(heap.contains(file));
+        assertTrue(heap.add(file, 1.0));
+        assertFalse(heap.add(file, 2.0));
+        assertTrue(heap.update(file, 7.0));
+        assertEquals(7.0, heap.getKey(file), 0.0);
+        assertTrue(heap.remove(file));
+        assertFalse(heap.remove(file));
+        assertEquals(-1, file.getEvictionHandle());
+        assertTrue(Double.isNaN(heap.getKey(file)));
+    }
+
+    @Test
+    public void randomOperationsKeepMinimumAtRoot() {
+        EvictionHeap heap = new EvictionHeap(4, 8);
+        TreeMap<Double, Inode> expected = new TreeMap<Double, Inode>();
+        List<Inode> present = new ArrayList<Inode>();
+        Random random = new Random(11);
+        long nextId = 0;
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(4);
+            // Distinct keys keep expected order unambiguous
+            double key = random.nextDouble() + i * 1e-12;
+            if (operation == 0 || present.isEmpty()) {
+                Inode file = file(nextId++);
+                heap.add(file, key);
+                expected.put(key, file);
+                present.add(file);
+            } else if (operation == 1) {
+                Inode file = present.get(random.nextInt(present.size()));
+                expected.remove(heap.getKey(file));
+                heap.update(file, key);
+                expected.put(key, file);
+            } else if (operation == 2) {
+                Inode file = present.remove(random.nextInt(present.size()));
+                expected.remove(heap.getKey(file));
+                assertTrue(heap.remove(file));
+            } else {
+                Inode file = heap.poll();
+                assertSame(expected.pollFirstEntry().getValue(), file);
+                present.remove(file);
+            }
+            assertEquals(expected.size(), heap.size());
+            if (!expected.isEmpty()) {
+                assertSame(expected.firstEntry().getValue(), heap.peek());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * This class tests that ghost list remembers recently removed files and
+ * forgets the oldest one first.
+ *
+ * @author jsrudani
+ *
+ */
+public class GhostListTest {
+
+    private static Inode file(long inodeId) {
+        return new Inode(inodeId, "/ghost/" + inodeId, 0L, 0L, 0L, false, 10L, 0.0f, 0L, 0L);
+    }
+
+    @Test
+    public void removeReturnsRememberedEntryOnce() {
+        GhostList ghostList = new GhostList(4);
+        Inode file = file(1);
+        ghostList.add(file, 0.5f, 20L);
+        GhostList.Ghost ghost = ghostList.remove(file);
+        assertNotNull(ghost);
+        assertEquals(0.5f, ghost.getPopularity(), 0.0f);
+        assertEquals(20L, ghost.getWindowSize());
+        assertNull(ghostList.remove(file));
+        assertEquals(0, ghostList.size());
+    }
+
+    @Test
+    public void oldestEntryIsForgottenFirst() {
+        GhostList ghostList = new GhostList(3);
+        for (long i = 0; i < 4; i++) {
+            ghostList.add(file(i), i, i);
+        }
+        assertEquals(3, ghostList.size());
+        assertNull(ghostList.remove(file(0)));
+        for (long i = 1; i < 4; i++) {
+            assertEquals((float) i, ghostList.remove(file(i)).getPopularity(), 0.0f);
+        }
+    }
+
+    @Test
+    public void addingAgainKeepsLatestEntry() {
+        GhostList ghostList = new GhostList(3);
+        Inode file = file(7);
+        ghostList.add(file, 1.0f, 1L);
+        ghostList.add(file, 2.0f, 2L);
+        assertEquals(1, ghostList.size());
+        assertEquals(2.0f, ghostList.remove(file).getPopularity(), 0.0f);
+        assertNull(ghostList.remove(file));
+    }
+
+    @Test
+    public void indexSurvivesManyAddAndRemove() {
+        GhostList ghostList = new GhostList(16);
+        for (long i = 0; i < 10000; i++) {
+            ghostList.add(file(i * 1024), i, i);
+            if (i % 3 == 0) {
+                assertNotNull(ghostList.remove(file(i * 1024)));
+            }
+        }
+        // Ring holds last 16 entries added, except the ones removed
+        int expected = 0;
+        for (long i = 10000 - 16; i < 10000; i++) {
+            if (i % 3 != 0) {
+                expected++;
+            }
+        }
+        assertEquals(expected, ghostList.size());
+        for (long i = 10000 - 32; i < 10000; i++) {
+            boolean remembered = i >= 10000 - 16 && i % 3 != 0;
+            assertEquals(remembered, ghostList.remove(file(i * 1024)) != null);
+        }
+        assertEquals(0, ghostList.size());
+    }
+
+    @Test
+    public void zeroCapacityRemembersNothing() {
+        GhostList ghostList = new GhostList(0);
+        ghostList.add(file(1), 1.0f, 1L);
+        assertNull(ghostList.remove(file(1)));
+    }
+}
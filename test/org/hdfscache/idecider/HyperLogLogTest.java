@@ -0,0 +1,51 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class tests the accuracy of distinct count estimated by HyperLogLog.
+ *
+ * @author jsrudani
+ *
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void estimatesSmallAndLargeCardinality() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add(FnvHash.hash("/file/" + i));
+        }
+        assertEquals(1000.0, sketch.cardinality(), 1000 * 0.05);
+        for (int i = 0; i < 200000; i++) {
+            sketch.add(FnvHash.hash("/file/" + i));
+        }
+        assertEquals(200000.0, sketch.cardinality(), 200000 * 0.05);
+    }
+
+    @Test
+    public void repeatedItemsAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(FnvHash.hash("/file/" + (i % 10)));
+        }
+        assertEquals(10L, sketch.cardinality());
+    }
+
+    @Test
+    public void clearForgetsItems() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        sketch.add(FnvHash.hash("/file"));
+        assertTrue(sketch.cardinality() > 0);
+        sketch.clear();
+        assertEquals(0L, sketch.cardinality());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPrecision() {
+        new HyperLogLog(3);
+    }
+}
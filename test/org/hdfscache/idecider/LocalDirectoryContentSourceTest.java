@@ -0,0 +1,36 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * This class tests that content source reads only files under its root
+ * directory.
+ *
+ * @author jsrudani
+ *
+ */
+public class LocalDirectoryContentSourceTest {
+
+    @Test
+    public void fileUnderRootIsResolved() throws Exception {
+        File root = Files.createTempDirectory("lpf-root").toFile();
+        Files.write(new File(root, "inside").toPath(), new byte[10]);
+        LocalDirectoryContentSource source = new LocalDirectoryContentSource(root.getPath());
+        assertEquals(10L, source.getSize(new Inode("/inside", 0L)));
+    }
+
+    @Test(expected = IOException.class)
+    public void pathOutsideRootIsRejected() throws Exception {
+        File parent = Files.createTempDirectory("lpf-parent").toFile();
+        File root = new File(parent, "root");
+        root.mkdir();
+        Files.write(new File(parent, "outside").toPath(), new byte[10]);
+        new LocalDirectoryContentSource(root.getPath()).getSize(new Inode("/../outside", 0L));
+    }
+}
@@ -0,0 +1,53 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class tests that prefetch engine predicts only the successors which
+ * are surely seen enough times.
+ *
+ * @author jsrudani
+ *
+ */
+public class PrefetchEngineTest {
+
+    private static Inode file(long inodeId) {
+        return new Inode(inodeId, "/prefetch/" + inodeId, 0L, 0L, 0L, false, 10L, 0.0f, 0L, 0L);
+    }
+
+    @Test
+    public void frequentSuccessorIsPredicted() {
+        PrefetchEngine engine = new PrefetchEngine(4, 2);
+        Inode trigger = file(1);
+        Inode successor = file(2);
+        engine.record(trigger, successor);
+        assertTrue(engine.predict(trigger).isEmpty());
+        engine.record(trigger, successor);
+        List<Inode> prediction = engine.predict(trigger);
+        assertEquals(1, prediction.size());
+        assertEquals(successor, prediction.get(0));
+    }
+
+    @Test
+    public void replacingSuccessorDoesNotInheritSupport() {
+        PrefetchEngine engine = new PrefetchEngine(4, 1);
+        Inode trigger = file(11);
+        Inode evicted = file(12);
+        Inode replacing = file(13);
+        for (int i = 0; i < 3; i++) {
+            engine.record(trigger, evicted);
+        }
+        engine.record(trigger, replacing);
+        assertTrue(engine.predict(trigger).isEmpty());
+        for (int i = 0; i < 3; i++) {
+            engine.record(trigger, replacing);
+        }
+        // Replacing successor is now surely seen 3 times out of 7 reads
+        assertEquals(replacing, engine.predict(trigger).get(0));
+    }
+}
@@ -0,0 +1,59 @@
+package org.hdfscache.idecider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * This class tests that space saving keeps the frequent items and their
+ * error bound.
+ *
+ * @author jsrudani
+ *
+ */
+public class SpaceSavingTest {
+
+    @Test
+    public void hotItemSurvivesNewItems() {
+        SpaceSaving topK = new SpaceSaving(3);
+        for (int i = 0; i < 100; i++) {
+            topK.add("hot");
+        }
+        topK.add("b");
+        topK.add("c");
+        topK.add("d");
+        List<FrequentItem> top = topK.top(3);
+        assertEquals("hot", top.get(0).getItem());
+        assertEquals(100L, top.get(0).getCount());
+        assertEquals(0L, top.get(0).getError());
+        // d replaced one of the items counted once and inherits its count
+        assertEquals("d", top.get(1).getItem());
+        assertEquals(2L, top.get(1).getCount());
+        assertEquals(1L, top.get(1).getError());
+    }
+
+    @Test
+    public void countBoundsTrueFrequency() {
+        SpaceSaving topK = new SpaceSaving(16);
+        int[] frequency = new int[200];
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            // Skewed stream where small items are frequent
+            int item = (int) Math.min(frequency.length - 1, Math.abs(random.nextGaussian()) * 20);
+            frequency[item]++;
+            topK.add(String.valueOf(item));
+        }
+        assertEquals(16, topK.size());
+        for (FrequentItem entry : topK.top(16)) {
+            int item = Integer.parseInt(entry.getItem());
+            long count = entry.getCount();
+            long error = entry.getError();
+            assertTrue(count >= frequency[item]);
+            assertTrue(count - error <= frequency[item]);
+        }
+    }
+}